@@ -1,6 +1,7 @@
 plugins {
     id("com.github.johnrengelman.shadow") version "8.1.1"
     id("org.vicky.blockbench-dissolver") version "0.0.1-HANA"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 version = "0.0.1"
@@ -142,6 +143,14 @@ tasks.test {
     useJUnitPlatform()
 }
 
+// Microbenchmarks in src/jmh/java; run with ./gradlew :shared:jmh -Pjmh.includes=<regex>
+jmh {
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    findProperty("jmh.includes")?.let { includes.add(it.toString()) }
+}
+
 // Optional: downgrade task if you need
 tasks.register<xyz.wagyourtail.jvmdg.gradle.task.DowngradeJar>("downgrade") {
     inputFile = file("libs/jNBT-1.6.0.jar")
@@ -0,0 +1,102 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.platform.utils;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Bulk operations on {@link Vec3Array} against the same work done on an array
+ * of {@link Vec3} objects, which allocates a vector per point per operation.
+ * <p>
+ * Rotation is covered by {@code RotationBenchmark}. Results are per pass over
+ * all vectors; divide by {@code vectors} for the cost per vector, and add
+ * {@code -prof gc} to see the allocation the object path pays.
+ * </p>
+ * Run with {@code ./gradlew :shared:jmh -Pjmh.includes=Vec3ArrayBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class Vec3ArrayBenchmark {
+	@Param({"64", "1024", "16384"})
+	public int vectors;
+
+	private Vec3[] objects;
+	private Vec3Array array;
+	private double[] out;
+	private final Vec3 target = new Vec3(10, 64, -3);
+	private Vec3 offset = new Vec3(0.25, -0.5, 0.125);
+
+	@Setup
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(1);
+		objects = new Vec3[vectors];
+		array = new Vec3Array(vectors);
+		out = new double[vectors];
+		for (int i = 0; i < vectors; i++) {
+			double x = random.nextDouble(-32, 32);
+			double y = random.nextDouble(0, 128);
+			double z = random.nextDouble(-32, 32);
+			objects[i] = new Vec3(x, y, z);
+			array.add(x, y, z);
+		}
+	}
+
+	@Benchmark
+	public void translateObjects(Blackhole blackhole) {
+		// alternate the direction so the values stay put across calls
+		offset = new Vec3(-offset.x, -offset.y, -offset.z);
+		Vec3[] objects = this.objects;
+		for (int i = 0; i < objects.length; i++) {
+			objects[i] = objects[i].add(offset);
+		}
+		blackhole.consume(objects);
+	}
+
+	@Benchmark
+	public void translateArray(Blackhole blackhole) {
+		offset = new Vec3(-offset.x, -offset.y, -offset.z);
+		array.translate(offset.x, offset.y, offset.z);
+		blackhole.consume(array.xs());
+	}
+
+	@Benchmark
+	public void distanceSquaredObjects(Blackhole blackhole) {
+		Vec3[] objects = this.objects;
+		double[] out = this.out;
+		for (int i = 0; i < objects.length; i++) {
+			out[i] = objects[i].distanceSq(target);
+		}
+		blackhole.consume(out);
+	}
+
+	@Benchmark
+	public void distanceSquaredArray(Blackhole blackhole) {
+		blackhole.consume(array.distanceSquared(target.x, target.y, target.z, out));
+	}
+
+	@Benchmark
+	public void normalizeObjects(Blackhole blackhole) {
+		Vec3[] objects = this.objects;
+		for (int i = 0; i < objects.length; i++) {
+			objects[i] = objects[i].normalize();
+		}
+		blackhole.consume(objects);
+	}
+
+	@Benchmark
+	public void normalizeArray(Blackhole blackhole) {
+		array.normalize();
+		blackhole.consume(array.xs());
+	}
+}
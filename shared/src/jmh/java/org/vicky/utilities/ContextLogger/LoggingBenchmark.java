@@ -0,0 +1,124 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities.ContextLogger;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.vicky.platform.PlatformLogger;
+import org.vicky.utilities.ContextLogger.ContextLogger.ContextType;
+import org.vicky.utilities.ContextLogger.ContextLogger.LogType;
+
+/**
+ * Cost of a log call on the calling thread.
+ * <p>
+ * The {@code filtered*} benchmarks call loggers whose level rejects the call,
+ * which is what debug logging in a tick loop costs in production; they should
+ * stay in the low nanoseconds and allocate nothing (check with
+ * {@code -prof gc}). {@code async*} measures capturing an enabled call into a
+ * lane, and the {@code template*} pair compares formatting through a parsed
+ * {@link MessageTemplate} with rescanning the template on every call.
+ * </p>
+ * Run with {@code ./gradlew :shared:jmh -Pjmh.includes=LoggingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoggingBenchmark {
+	private static final String TEMPLATE = "Chunk {} of {} loaded in {} ms";
+
+	private ContextLogger filteredSync;
+	private AsyncContextLogger filteredAsync;
+	private AsyncContextLogger enabledAsync;
+	private final Object[] args = {12, "overworld", 3.5};
+	private final List<String> replacements = List.of("12", "overworld", "3.5");
+	private int counter;
+
+	@Setup
+	public void setup() {
+		LogLevels.setLevel(ContextType.FEATURE, "BENCH-FILTERED", LogType.ERROR);
+		LogLevels.setLevel(ContextType.FEATURE, "BENCH-ENABLED", LogType.DEBUG);
+		filteredSync = new ContextLogger(ContextType.FEATURE, "BENCH-FILTERED", new NullLogger());
+		filteredAsync = new AsyncContextLogger(ContextType.FEATURE, "BENCH-FILTERED", new NullLogger());
+		enabledAsync = new AsyncContextLogger(ContextType.FEATURE, "BENCH-ENABLED", new NullLogger(), 1 << 16);
+	}
+
+	@TearDown
+	public void tearDown() throws InterruptedException {
+		AsyncLogDispatcher.shutdown(5, TimeUnit.SECONDS);
+	}
+
+	@Benchmark
+	public void filteredSyncFixedArity() {
+		filteredSync.debug(TEMPLATE, args[0], args[1], args[2]);
+	}
+
+	@Benchmark
+	public void filteredSyncPrimitive() {
+		filteredSync.debug(TEMPLATE, counter++);
+	}
+
+	@Benchmark
+	public void filteredSyncVarargs() {
+		filteredSync.debug(TEMPLATE, args);
+	}
+
+	@Benchmark
+	public void filteredSyncSupplier() {
+		filteredSync.log(LogType.DEBUG, () -> "Chunk " + counter + " loaded");
+	}
+
+	@Benchmark
+	public void filteredAsyncFixedArity() {
+		filteredAsync.debug(TEMPLATE, args[0], args[1], args[2]);
+	}
+
+	@Benchmark
+	public void asyncEnabledFixedArity() {
+		// a full lane drops the call, which the dropped count of the run shows
+		enabledAsync.debug(TEMPLATE, args[0], args[1], args[2]);
+	}
+
+	@Benchmark
+	public void templateCompiled(Blackhole blackhole) {
+		StringBuilder sb = new StringBuilder(64);
+		MessageTemplate.of(TEMPLATE).appendTo(sb, args, args.length);
+		blackhole.consume(sb.toString());
+	}
+
+	@Benchmark
+	public void templateRescanned(Blackhole blackhole) {
+		blackhole.consume(ContextLogger.replaceAllOrdered(TEMPLATE, replacements));
+	}
+
+	/** Discards every line, so only the logging path itself is measured. */
+	private static final class NullLogger implements PlatformLogger {
+		@Override
+		public void info(String message) {
+		}
+
+		@Override
+		public void warn(String msg) {
+		}
+
+		@Override
+		public void error(String msg) {
+		}
+
+		@Override
+		public void debug(String msg) {
+		}
+
+		@Override
+		public void error(String msg, Throwable throwable) {
+		}
+	}
+}
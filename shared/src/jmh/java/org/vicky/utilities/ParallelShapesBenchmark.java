@@ -0,0 +1,81 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.vicky.platform.utils.Vec3Array;
+import org.vicky.utilities.ParticleTypeEffect.ParticleTypeEffects;
+
+/**
+ * Placing and rotating one shape on the calling thread against splitting it
+ * over the {@link ParallelShapes} pool, to measure the default threshold the
+ * parallel path is held back for: the smallest {@code points} from which
+ * {@code parallel} is clearly faster than {@code sequential}.
+ * <p>
+ * The parallel path needs at least three cores; on smaller hosts both
+ * benchmarks run sequentially and should match. Results are per frame.
+ * Run with {@code ./gradlew :shared:jmh -Pjmh.includes=ParallelShapesBenchmark}.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParallelShapesBenchmark {
+  @Param({"4096", "16384", "65536", "262144"})
+  public int points;
+
+  // EXPLODING_STARS draws from the random, so the per-chunk splits are measured too
+  @Param({"HELIX", "EXPLODING_STARS"})
+  public ParticleTypeEffects shape;
+
+  private final QuaternionRotation rotation = new QuaternionRotation();
+  private final SplittableRandom random = new SplittableRandom(1);
+  private ShapeTemplate template;
+  private Vec3Array buffer;
+  private RotationMatrix matrix;
+  private int previousThreshold;
+  private double angle;
+
+  @Setup
+  public void setup() {
+    template = ShapeTemplate.of(shape, 3, 0.05, points, 1, null, 0);
+    buffer = new Vec3Array(template.size());
+    matrix = rotation.matrix(37, -20);
+    previousThreshold = ParallelShapes.parallelThreshold();
+  }
+
+  @TearDown
+  public void tearDown() {
+    ParallelShapes.setParallelThreshold(previousThreshold);
+  }
+
+  @Benchmark
+  public void sequential(Blackhole blackhole) {
+    ParallelShapes.setParallelThreshold(ParallelShapes.DISABLED);
+    placeAndRotate(blackhole);
+  }
+
+  @Benchmark
+  public void parallel(Blackhole blackhole) {
+    ParallelShapes.setParallelThreshold(0);
+    placeAndRotate(blackhole);
+  }
+
+  private void placeAndRotate(Blackhole blackhole) {
+    angle += 0.1;
+    ParallelShapes.placeAndRotate(
+        template, angle, 10, 64, -3, buffer, random, matrix, 10, 64, -3);
+    blackhole.consume(buffer.xs());
+  }
+}
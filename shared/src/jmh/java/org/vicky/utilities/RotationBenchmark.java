@@ -0,0 +1,94 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.vicky.platform.utils.Vec3;
+import org.vicky.platform.utils.Vec3Array;
+import org.vicky.platform.world.PlatformLocation;
+
+/**
+ * Rotating a frame's particle positions around an arrow: the old per-point
+ * path, which builds the quaternion and allocates vectors for every point,
+ * against one {@link RotationMatrix} applied to a {@link Vec3Array}.
+ * {@code matrixNewOrientation} changes the arrow's yaw every call, so the
+ * matrix is rebuilt each time as for an arrow that keeps turning;
+ * {@code matrixSameOrientation} reuses the cached matrix.
+ * <p>
+ * Results are per frame; divide by {@code points} for the cost per point.
+ * Run with {@code ./gradlew :shared:jmh -Pjmh.includes=RotationBenchmark}.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RotationBenchmark {
+  @Param({"64", "1024"})
+  public int points;
+
+  private final QuaternionRotation rotation = new QuaternionRotation();
+  private PlatformLocation arrow;
+  private PlatformLocation[] locations;
+  private double[] xs;
+  private double[] ys;
+  private double[] zs;
+  private Vec3Array buffer;
+  private int frame;
+
+  @Setup
+  public void setup() {
+    arrow = new PlatformLocation(null, 10, 64, -3);
+    arrow.yaw = 37;
+    arrow.pitch = -20;
+    SplittableRandom random = new SplittableRandom(1);
+    locations = new PlatformLocation[points];
+    xs = new double[points];
+    ys = new double[points];
+    zs = new double[points];
+    buffer = new Vec3Array(points);
+    for (int i = 0; i < points; i++) {
+      xs[i] = 10 + random.nextDouble(-2, 2);
+      ys[i] = 64 + random.nextDouble(-2, 2);
+      zs[i] = -3 + random.nextDouble(-2, 2);
+      locations[i] = new PlatformLocation(null, xs[i], ys[i], zs[i]);
+    }
+  }
+
+  @Benchmark
+  public void perPoint(Blackhole blackhole) {
+    for (PlatformLocation location : locations) {
+      blackhole.consume(rotation.rotateAroundArrow(location, arrow, Vec3.ZERO));
+    }
+  }
+
+  @Benchmark
+  public void matrixNewOrientation(Blackhole blackhole) {
+    arrow.yaw = (frame++ & 1) == 0 ? 37 : 38;
+    rotateBuffer(blackhole);
+  }
+
+  @Benchmark
+  public void matrixSameOrientation(Blackhole blackhole) {
+    rotateBuffer(blackhole);
+  }
+
+  // the shapes are placed fresh every frame, so the copy is part of the frame
+  private void rotateBuffer(Blackhole blackhole) {
+    buffer.clear();
+    for (int i = 0; i < points; i++) {
+      buffer.add(xs[i], ys[i], zs[i]);
+    }
+    rotation.rotateAroundArrow(buffer, arrow);
+    blackhole.consume(buffer.xs());
+  }
+}
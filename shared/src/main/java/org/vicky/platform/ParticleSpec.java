@@ -0,0 +1,114 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.platform;
+
+import java.util.Objects;
+
+import org.vicky.platform.entity.PlatformParticle;
+
+/**
+ * What to spawn at each point of a batch: the particle, how it is colored and
+ * the per-point spawn arguments of
+ * {@link PlatformParticleProvider#spawnBasic(PlatformParticle, org.vicky.platform.world.PlatformLocation, int, double, double, double, float, float)}
+ * and its colored variants.
+ * <p>
+ * Specs are immutable, so an effect builds its specs once and passes them
+ * with every frame.
+ * </p>
+ */
+public final class ParticleSpec {
+	private final Kind kind;
+	private final PlatformParticle type;
+	private final int count;
+	private final double spreadX;
+	private final double spreadY;
+	private final double spreadZ;
+	private final float speed;
+	private final float size;
+	private final IColor color;
+	private final IColor toColor;
+
+	private ParticleSpec(Kind kind, PlatformParticle type, int count, double spreadX, double spreadY, double spreadZ,
+			float speed, float size, IColor color, IColor toColor) {
+		this.kind = kind;
+		this.type = Objects.requireNonNull(type, "type");
+		this.count = count;
+		this.spreadX = spreadX;
+		this.spreadY = spreadY;
+		this.spreadZ = spreadZ;
+		this.speed = speed;
+		this.size = size;
+		this.color = color;
+		this.toColor = toColor;
+	}
+
+	public static ParticleSpec basic(PlatformParticle type, int count, double spreadX, double spreadY, double spreadZ,
+			float speed, float size) {
+		return new ParticleSpec(Kind.BASIC, type, count, spreadX, spreadY, spreadZ, speed, size, null, null);
+	}
+
+	public static ParticleSpec colored(PlatformParticle type, int count, double spreadX, double spreadY, double spreadZ,
+			float speed, IColor color, float size) {
+		return new ParticleSpec(Kind.COLORED, type, count, spreadX, spreadY, spreadZ, speed, size,
+				Objects.requireNonNull(color, "color"), null);
+	}
+
+	public static ParticleSpec transition(PlatformParticle type, int count, double spreadX, double spreadY,
+			double spreadZ, float speed, IColor from, IColor to, float size) {
+		return new ParticleSpec(Kind.TRANSITION, type, count, spreadX, spreadY, spreadZ, speed, size,
+				Objects.requireNonNull(from, "from"), Objects.requireNonNull(to, "to"));
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public PlatformParticle getType() {
+		return type;
+	}
+
+	/** Particles spawned at each point. */
+	public int getCount() {
+		return count;
+	}
+
+	public double getSpreadX() {
+		return spreadX;
+	}
+
+	public double getSpreadY() {
+		return spreadY;
+	}
+
+	public double getSpreadZ() {
+		return spreadZ;
+	}
+
+	public float getSpeed() {
+		return speed;
+	}
+
+	public float getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the color of a {@link Kind#COLORED} spec or the start color of a
+	 *         {@link Kind#TRANSITION} one; {@code null} for {@link Kind#BASIC}
+	 */
+	public IColor getColor() {
+		return color;
+	}
+
+	/**
+	 * @return the end color of a {@link Kind#TRANSITION} spec, {@code null}
+	 *         otherwise
+	 */
+	public IColor getToColor() {
+		return toColor;
+	}
+
+	/** Which spawn method a spec maps to. */
+	public enum Kind {
+		BASIC, COLORED, TRANSITION
+	}
+}
@@ -1,9 +1,85 @@
 package org.vicky.platform;
 
+import java.util.Arrays;
+
 public interface PlatformLogger {
     void info(String message);
     void warn(String msg);
     void error(String msg);
     void debug(String msg);
     void error(String msg, Throwable throwable);
-}
\ No newline at end of file
+
+    /**
+     * Writes a batch of already formatted lines, in order. High-volume drains (like the async
+     * context logger workers) call this once per batch instead of once per line, so platforms
+     * that write to files or consoles can override it to do a single write per batch.
+     * <p>
+     * The batch is reused by the caller after this returns and must not be kept.
+     *
+     * @param batch the lines to write
+     */
+    default void logBatch(Batch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            String message = batch.message(i);
+            switch (batch.level(i)) {
+                case DEBUG -> debug(message);
+                case WARN -> warn(message);
+                case ERROR -> error(message);
+                default -> info(message);
+            }
+        }
+    }
+
+    /**
+     * The stream a line goes to.
+     */
+    enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    /**
+     * A reusable, growable list of (level, message) pairs backed by two parallel arrays.
+     */
+    final class Batch {
+        private Level[] levels;
+        private String[] messages;
+        private int size;
+
+        public Batch(int initialCapacity) {
+            int capacity = Math.max(1, initialCapacity);
+            this.levels = new Level[capacity];
+            this.messages = new String[capacity];
+        }
+
+        public void add(Level level, String message) {
+            if (size == messages.length) {
+                levels = Arrays.copyOf(levels, size * 2);
+                messages = Arrays.copyOf(messages, size * 2);
+            }
+            levels[size] = level;
+            messages[size] = message;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public Level level(int index) {
+            return levels[index];
+        }
+
+        public String message(int index) {
+            return messages[index];
+        }
+
+        public void clear() {
+            Arrays.fill(messages, 0, size, null);
+            size = 0;
+        }
+    }
+}
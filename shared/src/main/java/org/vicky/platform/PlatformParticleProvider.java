@@ -2,7 +2,9 @@ package org.vicky.platform;
 
 import org.vicky.platform.entity.PlatformParticle;
 import org.vicky.platform.utils.Location3D;
+import org.vicky.platform.utils.Vec3Array;
 import org.vicky.platform.world.PlatformLocation;
+import org.vicky.platform.world.PlatformWorld;
 
 public interface PlatformParticleProvider {
     void spawnBasic(PlatformParticle type, PlatformLocation loc, int count, double spreadX, double spreadY, double spreadZ, float speed, float size);
@@ -10,4 +12,65 @@ public interface PlatformParticleProvider {
     void spawnColored(PlatformParticle type, PlatformLocation loc, int count, double spreadX, double spreadY, double spreadZ, float speed, IColor color, float size);
 
     void spawnTransition(PlatformParticle type, PlatformLocation loc, int count, double spreadX, double spreadY, double spreadZ, float speed, IColor from, IColor to, float size);
+
+    /**
+     * Same as {@link #spawnBasic(PlatformParticle, PlatformLocation, int, double, double, double, float, float)}
+     * at raw coordinates. Particle effects call this once per particle every frame; platforms should override it
+     * to spawn without building a location. The default wraps the coordinates in one.
+     */
+    default void spawnBasic(PlatformParticle type, PlatformWorld world, double x, double y, double z, int count, double spreadX, double spreadY, double spreadZ, float speed, float size) {
+        spawnBasic(type, new PlatformLocation(world, x, y, z), count, spreadX, spreadY, spreadZ, speed, size);
+    }
+
+    /**
+     * Raw-coordinate form of {@link #spawnColored(PlatformParticle, PlatformLocation, int, double, double, double, float, IColor, float)}.
+     */
+    default void spawnColored(PlatformParticle type, PlatformWorld world, double x, double y, double z, int count, double spreadX, double spreadY, double spreadZ, float speed, IColor color, float size) {
+        spawnColored(type, new PlatformLocation(world, x, y, z), count, spreadX, spreadY, spreadZ, speed, color, size);
+    }
+
+    /**
+     * Raw-coordinate form of {@link #spawnTransition(PlatformParticle, PlatformLocation, int, double, double, double, float, IColor, IColor, float)}.
+     */
+    default void spawnTransition(PlatformParticle type, PlatformWorld world, double x, double y, double z, int count, double spreadX, double spreadY, double spreadZ, float speed, IColor from, IColor to, float size) {
+        spawnTransition(type, new PlatformLocation(world, x, y, z), count, spreadX, spreadY, spreadZ, speed, from, to, size);
+    }
+
+    /**
+     * Spawns one frame's worth of particles: the spec at every point of the buffer, in order.
+     * <p>
+     * Particle effects hand a whole frame to this method, so platforms can override it to send the batch to each
+     * viewer in one packet instead of one per point. The default calls the raw-coordinate spawn method matching
+     * the spec's {@link ParticleSpec.Kind} for each point.
+     * </p>
+     * <p>
+     * The buffer is reused by the caller after this returns and must not be kept; copy the points if they are
+     * needed later.
+     * </p>
+     *
+     * @param points the positions to spawn at, valid only for the duration of this call
+     */
+    default void spawnBatch(PlatformWorld world, Vec3Array points, ParticleSpec spec) {
+        double[] xs = points.xs();
+        double[] ys = points.ys();
+        double[] zs = points.zs();
+        int n = points.size();
+        switch (spec.getKind()) {
+            case COLORED:
+                for (int i = 0; i < n; i++) {
+                    spawnColored(spec.getType(), world, xs[i], ys[i], zs[i], spec.getCount(), spec.getSpreadX(), spec.getSpreadY(), spec.getSpreadZ(), spec.getSpeed(), spec.getColor(), spec.getSize());
+                }
+                break;
+            case TRANSITION:
+                for (int i = 0; i < n; i++) {
+                    spawnTransition(spec.getType(), world, xs[i], ys[i], zs[i], spec.getCount(), spec.getSpreadX(), spec.getSpreadY(), spec.getSpreadZ(), spec.getSpeed(), spec.getColor(), spec.getToColor(), spec.getSize());
+                }
+                break;
+            default:
+                for (int i = 0; i < n; i++) {
+                    spawnBasic(spec.getType(), world, xs[i], ys[i], zs[i], spec.getCount(), spec.getSpreadX(), spec.getSpreadY(), spec.getSpreadZ(), spec.getSpeed(), spec.getSize());
+                }
+                break;
+        }
+    }
 }
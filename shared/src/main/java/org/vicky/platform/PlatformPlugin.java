@@ -16,6 +16,7 @@ import org.vicky.platform.items.PlatformItemFactory;
 import org.vicky.platform.player.PlatformPlayer;
 import org.vicky.platform.server.PlatformServer;
 import org.vicky.platform.world.PlatformBlockStateFactory;
+import org.vicky.utilities.ContextLogger.LogLevels;
 
 public interface PlatformPlugin {
 
@@ -29,6 +30,7 @@ public interface PlatformPlugin {
 	static void set(PlatformPlugin instance) {
 		if (Holder.INSTANCE == null) {
 			Holder.INSTANCE = instance;
+			LogLevels.refresh();
 			DefaultGuis.INSTANCE.register();
 		} else {
 			throw new IllegalStateException("Cannot set PlatformPlugin after its already been set.");
@@ -0,0 +1,699 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.platform.defaults;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.vicky.platform.utils.Vec3;
+
+/**
+ * A dynamic bounding volume tree over {@link AABB}s, for broad-phase queries
+ * such as "which entities overlap this area" or "what does this ray hit first"
+ * in O(log n) rather than a scan over every box.
+ * <p>
+ * Every value is a leaf holding its exact box and a <i>fat</i> box, the exact
+ * one grown by a margin (and, on {@link #move(int, AABB, double, double, double)},
+ * stretched along the displacement). A leaf is only re-inserted once its exact
+ * box leaves the fat one, so values that move a little each tick rarely touch
+ * the tree. Inner nodes bound their two children. Insertion descends towards
+ * the sibling that grows the total surface area least, the surface area
+ * heuristic, and every node on the way back up is rebalanced with a tree
+ * rotation when one child is more than one level taller than the other.
+ * </p>
+ * Nodes live in parallel primitive arrays indexed by proxy id, recycled
+ * through a free list. Queries prune on the fat boxes and test the exact box
+ * at the leaves. Query actions may run further queries but must not change
+ * the tree. The tree is not thread-safe; confine it to one thread, such as the
+ * server tick.
+ *
+ * <pre>
+ * AABBTree&lt;Entity&gt; tree = new AABBTree&lt;&gt;();
+ * int proxy = tree.insert(entity.getBoundingBox(), entity);
+ * tree.move(proxy, entity.getBoundingBox(), velocity.x, velocity.y, velocity.z);
+ * tree.querySphere(x, y, z, 6, hit -&gt; hit.damage(4));
+ * </pre>
+ *
+ * @param <T>
+ *            the values stored with the boxes
+ */
+public final class AABBTree<T> {
+	/** Default growth of fat boxes on every side, in blocks. */
+	public static final double DEFAULT_MARGIN = 0.1;
+
+	private static final int NULL = -1;
+	// fat boxes are stretched this many times a move's displacement
+	private static final double DISPLACEMENT_MULTIPLIER = 2;
+
+	private final double margin;
+
+	// fat bounds for leaves, union bounds for inner nodes
+	private double[] minX, minY, minZ, maxX, maxY, maxZ;
+	// parent, or the next free node for free ones
+	private int[] parent;
+	private int[] child1;
+	private int[] child2;
+	// 0 for leaves, -1 for free nodes
+	private int[] height;
+	private Object[] values;
+	private AABB[] exact;
+
+	private int root = NULL;
+	private int freeList = NULL;
+	private int leafCount;
+
+	public AABBTree() {
+		this(DEFAULT_MARGIN);
+	}
+
+	/**
+	 * @param margin
+	 *            how far fat boxes extend past the exact ones on every side
+	 */
+	public AABBTree(double margin) {
+		if (!(margin >= 0)) {
+			throw new IllegalArgumentException("Margin must not be negative, got " + margin);
+		}
+		this.margin = margin;
+		allocateNodes(16);
+	}
+
+	/** The number of values in the tree. */
+	public int size() {
+		return leafCount;
+	}
+
+	public boolean isEmpty() {
+		return leafCount == 0;
+	}
+
+	/** The height of the tree, 0 for a single leaf and -1 when empty. */
+	public int height() {
+		return root == NULL ? -1 : height[root];
+	}
+
+	/** Removes every value; proxy ids handed out before are no longer valid. */
+	public void clear() {
+		root = NULL;
+		leafCount = 0;
+		Arrays.fill(values, null);
+		Arrays.fill(exact, null);
+		freeList = NULL;
+		for (int i = parent.length - 1; i >= 0; i--) {
+			parent[i] = freeList;
+			height[i] = -1;
+			freeList = i;
+		}
+	}
+
+	/**
+	 * Adds a value with its box.
+	 *
+	 * @return the proxy id that identifies the value to {@link #move},
+	 *         {@link #remove} and {@link #get}
+	 */
+	public int insert(AABB box, T value) {
+		int proxy = allocateNode();
+		setFat(proxy, box, 0, 0, 0);
+		exact[proxy] = box;
+		values[proxy] = value;
+		height[proxy] = 0;
+		insertLeaf(proxy);
+		leafCount++;
+		return proxy;
+	}
+
+	/**
+	 * Removes a value.
+	 *
+	 * @return the removed value
+	 */
+	public T remove(int proxy) {
+		checkLeaf(proxy);
+		T value = get(proxy);
+		removeLeaf(proxy);
+		freeNode(proxy);
+		leafCount--;
+		return value;
+	}
+
+	/**
+	 * Updates a value's box. The tree only changes if the box has left the
+	 * value's fat box.
+	 *
+	 * @return true if the leaf was re-inserted
+	 */
+	public boolean move(int proxy, AABB box) {
+		return move(proxy, box, 0, 0, 0);
+	}
+
+	/**
+	 * Updates a value's box, given how far it moved since the last update. A
+	 * re-inserted leaf's fat box is stretched along the displacement, so a value
+	 * moving steadily stays inside it for several more updates.
+	 *
+	 * @return true if the leaf was re-inserted
+	 */
+	public boolean move(int proxy, AABB box, double dx, double dy, double dz) {
+		checkLeaf(proxy);
+		exact[proxy] = box;
+		if (minX[proxy] <= box.minX && minY[proxy] <= box.minY && minZ[proxy] <= box.minZ
+				&& maxX[proxy] >= box.maxX && maxY[proxy] >= box.maxY && maxZ[proxy] >= box.maxZ) {
+			return false;
+		}
+		removeLeaf(proxy);
+		setFat(proxy, box, dx, dy, dz);
+		insertLeaf(proxy);
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T get(int proxy) {
+		checkLeaf(proxy);
+		return (T) values[proxy];
+	}
+
+	/** The exact box last given for a value. */
+	public AABB getBounds(int proxy) {
+		checkLeaf(proxy);
+		return exact[proxy];
+	}
+
+	/** The fat box the tree holds for a value. */
+	public AABB getFatBounds(int proxy) {
+		checkLeaf(proxy);
+		return new AABB(minX[proxy], minY[proxy], minZ[proxy], maxX[proxy], maxY[proxy], maxZ[proxy]);
+	}
+
+	/**
+	 * Passes every value whose box intersects (touches or overlaps) the given
+	 * box to an action.
+	 */
+	public void query(AABB box, Consumer<? super T> action) {
+		if (root == NULL) {
+			return;
+		}
+		int[] stack = newStack();
+		int top = 0;
+		stack[top++] = root;
+		while (top > 0) {
+			int node = stack[--top];
+			if (maxX[node] < box.minX || minX[node] > box.maxX || maxY[node] < box.minY
+					|| minY[node] > box.maxY || maxZ[node] < box.minZ || minZ[node] > box.maxZ) {
+				continue;
+			}
+			if (height[node] == 0) {
+				if (exact[node].intersects(box)) {
+					action.accept(value(node));
+				}
+			} else {
+				stack[top++] = child1[node];
+				stack[top++] = child2[node];
+			}
+		}
+	}
+
+	/** The values whose boxes intersect the given box. */
+	public List<T> query(AABB box) {
+		List<T> found = new ArrayList<>();
+		query(box, found::add);
+		return found;
+	}
+
+	/**
+	 * Passes every value whose box is within {@code radius} of a point to an
+	 * action.
+	 */
+	public void querySphere(double x, double y, double z, double radius, Consumer<? super T> action) {
+		if (root == NULL) {
+			return;
+		}
+		double radiusSquared = radius * radius;
+		int[] stack = newStack();
+		int top = 0;
+		stack[top++] = root;
+		while (top > 0) {
+			int node = stack[--top];
+			if (distanceSquared(x, y, z, minX[node], minY[node], minZ[node], maxX[node], maxY[node],
+					maxZ[node]) > radiusSquared) {
+				continue;
+			}
+			if (height[node] == 0) {
+				AABB box = exact[node];
+				if (distanceSquared(x, y, z, box.minX, box.minY, box.minZ, box.maxX, box.maxY,
+						box.maxZ) <= radiusSquared) {
+					action.accept(value(node));
+				}
+			} else {
+				stack[top++] = child1[node];
+				stack[top++] = child2[node];
+			}
+		}
+	}
+
+	/**
+	 * Passes every value whose box is on the inner side of all the given planes,
+	 * such as a view frustum's six, to an action. Like most frustum culling the
+	 * test is conservative: a box straddling two planes outside a corner may be
+	 * reported.
+	 *
+	 * @param planes
+	 *            four entries per plane, {@code a, b, c, d}, with points where
+	 *            {@code a*x + b*y + c*z + d >= 0} on the inner side
+	 */
+	public void queryFrustum(double[] planes, Consumer<? super T> action) {
+		if (planes.length % 4 != 0) {
+			throw new IllegalArgumentException("Expected four entries per plane, got " + planes.length);
+		}
+		if (root == NULL) {
+			return;
+		}
+		// a node fully inside is pushed as ~node, and its subtree is reported without tests
+		int[] stack = newStack();
+		int top = 0;
+		stack[top++] = root;
+		while (top > 0) {
+			int entry = stack[--top];
+			int node = entry < 0 ? ~entry : entry;
+			boolean inside = entry < 0;
+			if (!inside) {
+				int state = classify(planes, minX[node], minY[node], minZ[node], maxX[node], maxY[node],
+						maxZ[node]);
+				if (state < 0) {
+					continue;
+				}
+				inside = state > 0;
+			}
+			if (height[node] == 0) {
+				AABB box = exact[node];
+				if (inside || classify(planes, box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ) >= 0) {
+					action.accept(value(node));
+				}
+			} else {
+				stack[top++] = inside ? ~child1[node] : child1[node];
+				stack[top++] = inside ? ~child2[node] : child2[node];
+			}
+		}
+	}
+
+	/**
+	 * Finds the value whose box a ray enters first.
+	 *
+	 * @param origin
+	 *            where the ray starts; a box containing it is hit at distance 0
+	 * @param direction
+	 *            the ray's direction; distances are in multiples of its length
+	 * @param maxDistance
+	 *            how far along the ray to look
+	 * @return the nearest hit, or {@code null} if the ray hits nothing within
+	 *         {@code maxDistance}
+	 */
+	public Hit<T> raycast(Vec3 origin, Vec3 direction, double maxDistance) {
+		if (root == NULL) {
+			return null;
+		}
+		double ox = origin.x, oy = origin.y, oz = origin.z;
+		double dx = direction.x, dy = direction.y, dz = direction.z;
+		int best = NULL;
+		double bestDistance = maxDistance;
+		int[] stack = newStack();
+		int top = 0;
+		stack[top++] = root;
+		while (top > 0) {
+			int node = stack[--top];
+			double entry = rayEntry(ox, oy, oz, dx, dy, dz, bestDistance, minX[node], minY[node], minZ[node],
+					maxX[node], maxY[node], maxZ[node]);
+			if (Double.isNaN(entry)) {
+				continue;
+			}
+			if (height[node] == 0) {
+				AABB box = exact[node];
+				double distance = rayEntry(ox, oy, oz, dx, dy, dz, bestDistance, box.minX, box.minY, box.minZ,
+						box.maxX, box.maxY, box.maxZ);
+				if (!Double.isNaN(distance) && (best == NULL || distance < bestDistance)) {
+					best = node;
+					bestDistance = distance;
+				}
+			} else {
+				stack[top++] = child1[node];
+				stack[top++] = child2[node];
+			}
+		}
+		return best == NULL ? null : new Hit<>(value(best), best, bestDistance);
+	}
+
+	/**
+	 * The nearest value a ray hits.
+	 *
+	 * @param value
+	 *            the value hit
+	 * @param proxy
+	 *            its proxy id
+	 * @param distance
+	 *            where along the ray its box is entered, in multiples of the
+	 *            direction's length
+	 */
+	public record Hit<T>(T value, int proxy, double distance) {
+	}
+
+	// ---- tree maintenance ----
+
+	private void insertLeaf(int leaf) {
+		if (root == NULL) {
+			root = leaf;
+			parent[leaf] = NULL;
+			return;
+		}
+
+		// descend towards the sibling whose pairing adds the least surface area
+		int index = root;
+		while (height[index] > 0) {
+			int c1 = child1[index];
+			int c2 = child2[index];
+			double area = area(index);
+			double combinedArea = unionArea(index, leaf);
+			// pairing the leaf with this node makes one new parent of the combined area
+			double cost = 2 * combinedArea;
+			// descending grows this node, and so every ancestor, by at least this much
+			double inheritance = 2 * (combinedArea - area);
+			double cost1 = descentCost(c1, leaf) + inheritance;
+			double cost2 = descentCost(c2, leaf) + inheritance;
+			if (cost < cost1 && cost < cost2) {
+				break;
+			}
+			index = cost1 < cost2 ? c1 : c2;
+		}
+
+		int sibling = index;
+		int oldParent = parent[sibling];
+		int newParent = allocateNode();
+		parent[newParent] = oldParent;
+		values[newParent] = null;
+		exact[newParent] = null;
+		setUnion(newParent, leaf, sibling);
+		height[newParent] = height[sibling] + 1;
+		if (oldParent != NULL) {
+			if (child1[oldParent] == sibling) {
+				child1[oldParent] = newParent;
+			} else {
+				child2[oldParent] = newParent;
+			}
+		} else {
+			root = newParent;
+		}
+		child1[newParent] = sibling;
+		child2[newParent] = leaf;
+		parent[sibling] = newParent;
+		parent[leaf] = newParent;
+
+		refit(parent[leaf]);
+	}
+
+	private void removeLeaf(int leaf) {
+		if (leaf == root) {
+			root = NULL;
+			return;
+		}
+		int oldParent = parent[leaf];
+		int grandParent = parent[oldParent];
+		int sibling = child1[oldParent] == leaf ? child2[oldParent] : child1[oldParent];
+		if (grandParent != NULL) {
+			if (child1[grandParent] == oldParent) {
+				child1[grandParent] = sibling;
+			} else {
+				child2[grandParent] = sibling;
+			}
+			parent[sibling] = grandParent;
+			freeNode(oldParent);
+			refit(grandParent);
+		} else {
+			root = sibling;
+			parent[sibling] = NULL;
+			freeNode(oldParent);
+		}
+	}
+
+	// rebalances and recomputes bounds and heights from a node up to the root
+	private void refit(int index) {
+		while (index != NULL) {
+			index = balance(index);
+			int c1 = child1[index];
+			int c2 = child2[index];
+			height[index] = 1 + Math.max(height[c1], height[c2]);
+			setUnion(index, c1, c2);
+			index = parent[index];
+		}
+	}
+
+	// cost of pushing the leaf down into a child: the child's growth, or a new parent for a leaf
+	private double descentCost(int child, int leaf) {
+		double combined = unionArea(child, leaf);
+		return height[child] == 0 ? combined : combined - area(child);
+	}
+
+	/**
+	 * Rotates the taller grandchild up if node A's children differ in height by
+	 * more than one.
+	 *
+	 * <pre>
+	 *       A
+	 *     /   \
+	 *    B     C
+	 *         / \
+	 *        F   G
+	 * </pre>
+	 *
+	 * When C is too tall it takes A's place, A takes the shorter of F and G, and
+	 * the taller one stays under C; symmetrically for B.
+	 *
+	 * @return the node now at A's position
+	 */
+	private int balance(int a) {
+		if (height[a] < 2) {
+			return a;
+		}
+		int b = child1[a];
+		int c = child2[a];
+		int skew = height[c] - height[b];
+		if (skew > 1) {
+			return rotateUp(a, c, b, false);
+		}
+		if (skew < -1) {
+			return rotateUp(a, b, c, true);
+		}
+		return a;
+	}
+
+	// lifts the tall child above a; short stays under a, next to the shorter grandchild
+	private int rotateUp(int a, int tall, int shortChild, boolean tallIsChild1) {
+		int f = child1[tall];
+		int g = child2[tall];
+
+		child1[tall] = a;
+		parent[tall] = parent[a];
+		parent[a] = tall;
+		if (parent[tall] != NULL) {
+			if (child1[parent[tall]] == a) {
+				child1[parent[tall]] = tall;
+			} else {
+				child2[parent[tall]] = tall;
+			}
+		} else {
+			root = tall;
+		}
+
+		// the taller grandchild stays with the lifted node, the other moves under a
+		int keep = height[f] > height[g] ? f : g;
+		int move = keep == f ? g : f;
+		child2[tall] = keep;
+		if (tallIsChild1) {
+			child1[a] = move;
+		} else {
+			child2[a] = move;
+		}
+		parent[move] = a;
+		setUnion(a, shortChild, move);
+		height[a] = 1 + Math.max(height[shortChild], height[move]);
+		setUnion(tall, a, keep);
+		height[tall] = 1 + Math.max(height[a], height[keep]);
+		return tall;
+	}
+
+	// ---- node storage ----
+
+	private void allocateNodes(int capacity) {
+		int from = parent == null ? 0 : parent.length;
+		if (parent == null) {
+			minX = new double[capacity];
+			minY = new double[capacity];
+			minZ = new double[capacity];
+			maxX = new double[capacity];
+			maxY = new double[capacity];
+			maxZ = new double[capacity];
+			parent = new int[capacity];
+			child1 = new int[capacity];
+			child2 = new int[capacity];
+			height = new int[capacity];
+			values = new Object[capacity];
+			exact = new AABB[capacity];
+		} else {
+			minX = Arrays.copyOf(minX, capacity);
+			minY = Arrays.copyOf(minY, capacity);
+			minZ = Arrays.copyOf(minZ, capacity);
+			maxX = Arrays.copyOf(maxX, capacity);
+			maxY = Arrays.copyOf(maxY, capacity);
+			maxZ = Arrays.copyOf(maxZ, capacity);
+			parent = Arrays.copyOf(parent, capacity);
+			child1 = Arrays.copyOf(child1, capacity);
+			child2 = Arrays.copyOf(child2, capacity);
+			height = Arrays.copyOf(height, capacity);
+			values = Arrays.copyOf(values, capacity);
+			exact = Arrays.copyOf(exact, capacity);
+		}
+		for (int i = capacity - 1; i >= from; i--) {
+			parent[i] = freeList;
+			height[i] = -1;
+			freeList = i;
+		}
+	}
+
+	private int allocateNode() {
+		if (freeList == NULL) {
+			allocateNodes(parent.length * 2);
+		}
+		int node = freeList;
+		freeList = parent[node];
+		parent[node] = NULL;
+		child1[node] = NULL;
+		child2[node] = NULL;
+		height[node] = 0;
+		return node;
+	}
+
+	private void freeNode(int node) {
+		values[node] = null;
+		exact[node] = null;
+		parent[node] = freeList;
+		height[node] = -1;
+		freeList = node;
+	}
+
+	private void checkLeaf(int proxy) {
+		if (proxy < 0 || proxy >= parent.length || height[proxy] != 0) {
+			throw new IllegalArgumentException("No value with proxy id " + proxy);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private T value(int node) {
+		return (T) values[node];
+	}
+
+	// depth-first, every level holds at most one pending sibling, plus the two children just pushed
+	private int[] newStack() {
+		return new int[height[root] + 2];
+	}
+
+	// ---- geometry ----
+
+	private void setFat(int node, AABB box, double dx, double dy, double dz) {
+		dx *= DISPLACEMENT_MULTIPLIER;
+		dy *= DISPLACEMENT_MULTIPLIER;
+		dz *= DISPLACEMENT_MULTIPLIER;
+		minX[node] = box.minX - margin + Math.min(dx, 0);
+		minY[node] = box.minY - margin + Math.min(dy, 0);
+		minZ[node] = box.minZ - margin + Math.min(dz, 0);
+		maxX[node] = box.maxX + margin + Math.max(dx, 0);
+		maxY[node] = box.maxY + margin + Math.max(dy, 0);
+		maxZ[node] = box.maxZ + margin + Math.max(dz, 0);
+	}
+
+	private void setUnion(int node, int a, int b) {
+		minX[node] = Math.min(minX[a], minX[b]);
+		minY[node] = Math.min(minY[a], minY[b]);
+		minZ[node] = Math.min(minZ[a], minZ[b]);
+		maxX[node] = Math.max(maxX[a], maxX[b]);
+		maxY[node] = Math.max(maxY[a], maxY[b]);
+		maxZ[node] = Math.max(maxZ[a], maxZ[b]);
+	}
+
+	private double area(int node) {
+		return surfaceArea(maxX[node] - minX[node], maxY[node] - minY[node], maxZ[node] - minZ[node]);
+	}
+
+	private double unionArea(int a, int b) {
+		return surfaceArea(Math.max(maxX[a], maxX[b]) - Math.min(minX[a], minX[b]),
+				Math.max(maxY[a], maxY[b]) - Math.min(minY[a], minY[b]),
+				Math.max(maxZ[a], maxZ[b]) - Math.min(minZ[a], minZ[b]));
+	}
+
+	private static double surfaceArea(double width, double height, double depth) {
+		return 2 * (width * height + height * depth + depth * width);
+	}
+
+	private static double distanceSquared(double x, double y, double z, double minX, double minY, double minZ,
+			double maxX, double maxY, double maxZ) {
+		double dx = Math.max(Math.max(minX - x, 0), x - maxX);
+		double dy = Math.max(Math.max(minY - y, 0), y - maxY);
+		double dz = Math.max(Math.max(minZ - z, 0), z - maxZ);
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	// -1 if the box is outside a plane, 1 if inside all of them, 0 if it straddles one
+	private static int classify(double[] planes, double minX, double minY, double minZ, double maxX, double maxY,
+			double maxZ) {
+		int state = 1;
+		for (int i = 0; i < planes.length; i += 4) {
+			double a = planes[i], b = planes[i + 1], c = planes[i + 2], d = planes[i + 3];
+			// the corner furthest along the plane's normal, and the one furthest against it
+			double far = a * (a >= 0 ? maxX : minX) + b * (b >= 0 ? maxY : minY) + c * (c >= 0 ? maxZ : minZ) + d;
+			if (far < 0) {
+				return -1;
+			}
+			double near = a * (a >= 0 ? minX : maxX) + b * (b >= 0 ? minY : maxY) + c * (c >= 0 ? minZ : maxZ) + d;
+			if (near < 0) {
+				state = 0;
+			}
+		}
+		return state;
+	}
+
+	// where the ray enters the box, 0 if it starts inside, NaN if it misses within maxDistance
+	private static double rayEntry(double ox, double oy, double oz, double dx, double dy, double dz,
+			double maxDistance, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		double near = 0;
+		double far = maxDistance;
+		if (dx == 0) {
+			if (ox < minX || ox > maxX) {
+				return Double.NaN;
+			}
+		} else {
+			double t1 = (minX - ox) / dx;
+			double t2 = (maxX - ox) / dx;
+			near = Math.max(near, Math.min(t1, t2));
+			far = Math.min(far, Math.max(t1, t2));
+		}
+		if (dy == 0) {
+			if (oy < minY || oy > maxY) {
+				return Double.NaN;
+			}
+		} else {
+			double t1 = (minY - oy) / dy;
+			double t2 = (maxY - oy) / dy;
+			near = Math.max(near, Math.min(t1, t2));
+			far = Math.min(far, Math.max(t1, t2));
+		}
+		if (dz == 0) {
+			if (oz < minZ || oz > maxZ) {
+				return Double.NaN;
+			}
+		} else {
+			double t1 = (minZ - oz) / dz;
+			double t2 = (maxZ - oz) / dz;
+			near = Math.max(near, Math.min(t1, t2));
+			far = Math.min(far, Math.max(t1, t2));
+		}
+		return near <= far ? near : Double.NaN;
+	}
+}
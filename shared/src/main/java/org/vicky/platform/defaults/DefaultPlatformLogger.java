@@ -34,5 +34,35 @@ public final class DefaultPlatformLogger implements PlatformLogger {
     public void debug(String msg) {
         System.out.println("[DEBUG][" + prefix + "] " + msg);
     }
+
+    /**
+     * Builds consecutive lines for the same stream together and writes each run with one call, switching
+     * streams only where the batch does, so lines keep their order.
+     */
+    @Override
+    public void logBatch(Batch batch) {
+        StringBuilder pending = new StringBuilder();
+        boolean pendingErr = false;
+        for (int i = 0; i < batch.size(); i++) {
+            Level level = batch.level(i);
+            boolean err = level == Level.ERROR;
+            if (err != pendingErr && pending.length() > 0) {
+                write(pending, pendingErr);
+                pending.setLength(0);
+            }
+            pendingErr = err;
+            pending.append('[').append(level.name()).append("][").append(prefix).append("] ")
+                    .append(batch.message(i)).append(System.lineSeparator());
+        }
+        if (pending.length() > 0) write(pending, pendingErr);
+    }
+
+    private static void write(CharSequence lines, boolean err) {
+        if (err) {
+            System.err.print(lines);
+        } else {
+            System.out.print(lines);
+        }
+    }
 }
 
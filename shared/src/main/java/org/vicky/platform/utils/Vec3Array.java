@@ -0,0 +1,266 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.platform.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A growable array of 3D vectors stored as three parallel {@code double[]}
+ * arrays, with in-place bulk operations.
+ * <p>
+ * {@link Vec3} allocates a new object per operation and {@link MutableVec3}
+ * still needs one object per vector. Code that works on many vectors at once,
+ * such as particle positions or distance checks against every player, can keep
+ * them here instead and run each operation as one loop over the arrays. The
+ * loops are plain counted loops over local arrays with no calls or branches in
+ * the body, which the JIT unrolls and, on most hardware, compiles to SIMD
+ * instructions.
+ * </p>
+ * <p>
+ * This is also the buffer particle effects place their shapes into: an effect
+ * that keeps its arrays across frames places, rotates (with
+ * {@link org.vicky.utilities.RotationMatrix}) and spawns its particles without
+ * allocating. The backing arrays only grow.
+ * </p>
+ * Operations that produce one value per vector ({@link #dot},
+ * {@link #distanceSquared}) write into a caller-supplied {@code double[]} of at
+ * least {@link #size()} entries, so a reused output array keeps them
+ * allocation-free too.
+ */
+public final class Vec3Array {
+	private double[] x;
+	private double[] y;
+	private double[] z;
+	private int size;
+
+	public Vec3Array() {
+		this(16);
+	}
+
+	public Vec3Array(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative, got " + capacity);
+		}
+		this.x = new double[capacity];
+		this.y = new double[capacity];
+		this.z = new double[capacity];
+	}
+
+	/**
+	 * Copies a collection of vectors into a new array.
+	 */
+	public static Vec3Array of(Collection<? extends Vector3> vectors) {
+		Vec3Array array = new Vec3Array(vectors.size());
+		for (Vector3 vector : vectors) {
+			array.add(vector);
+		}
+		return array;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return x.length;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** Removes all vectors, keeping the arrays. */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Sets the number of vectors, growing the arrays if needed. Entries that
+	 * become visible keep whatever the arrays held. Fetch the arrays after calling
+	 * this, since growing replaces them.
+	 */
+	public void resize(int size) {
+		ensureCapacity(size);
+		this.size = size;
+	}
+
+	public void ensureCapacity(int capacity) {
+		if (capacity > x.length) {
+			int grown = Math.max(capacity, x.length + (x.length >> 1));
+			x = Arrays.copyOf(x, grown);
+			y = Arrays.copyOf(y, grown);
+			z = Arrays.copyOf(z, grown);
+		}
+	}
+
+	public void add(double vx, double vy, double vz) {
+		ensureCapacity(size + 1);
+		x[size] = vx;
+		y[size] = vy;
+		z[size] = vz;
+		size++;
+	}
+
+	public void add(Vector3 vector) {
+		add(vector.getX(), vector.getY(), vector.getZ());
+	}
+
+	public void set(int index, double vx, double vy, double vz) {
+		checkIndex(index);
+		x[index] = vx;
+		y[index] = vy;
+		z[index] = vz;
+	}
+
+	public double x(int index) {
+		checkIndex(index);
+		return x[index];
+	}
+
+	public double y(int index) {
+		checkIndex(index);
+		return y[index];
+	}
+
+	public double z(int index) {
+		checkIndex(index);
+		return z[index];
+	}
+
+	/** Copies a vector out as a new {@link Vec3}. */
+	public Vec3 get(int index) {
+		checkIndex(index);
+		return new Vec3(x[index], y[index], z[index]);
+	}
+
+	/**
+	 * Copies a vector into an existing {@link MutableVec3}, without allocating.
+	 *
+	 * @return {@code into}
+	 */
+	public MutableVec3 get(int index, MutableVec3 into) {
+		checkIndex(index);
+		into.x = x[index];
+		into.y = y[index];
+		into.z = z[index];
+		return into;
+	}
+
+	/** The backing X array; only the first {@link #size()} entries are vectors. */
+	public double[] xs() {
+		return x;
+	}
+
+	public double[] ys() {
+		return y;
+	}
+
+	public double[] zs() {
+		return z;
+	}
+
+	/** Adds the same offset to every vector. */
+	public void translate(double dx, double dy, double dz) {
+		double[] x = this.x, y = this.y, z = this.z;
+		for (int i = 0, n = size; i < n; i++) {
+			x[i] += dx;
+			y[i] += dy;
+			z[i] += dz;
+		}
+	}
+
+	/** Multiplies every vector by a scalar. */
+	public void scale(double factor) {
+		scale(factor, factor, factor);
+	}
+
+	/** Multiplies every vector component-wise. */
+	public void scale(double sx, double sy, double sz) {
+		double[] x = this.x, y = this.y, z = this.z;
+		for (int i = 0, n = size; i < n; i++) {
+			x[i] *= sx;
+			y[i] *= sy;
+			z[i] *= sz;
+		}
+	}
+
+	/**
+	 * Writes the dot product of every vector with one vector.
+	 *
+	 * @param out
+	 *            receives one value per vector; at least {@link #size()} long
+	 * @return {@code out}
+	 */
+	public double[] dot(double vx, double vy, double vz, double[] out) {
+		checkOut(out);
+		double[] x = this.x, y = this.y, z = this.z;
+		for (int i = 0, n = size; i < n; i++) {
+			out[i] = x[i] * vx + y[i] * vy + z[i] * vz;
+		}
+		return out;
+	}
+
+	/**
+	 * Writes the dot product of every vector with the vector at the same index of
+	 * another array of the same size.
+	 *
+	 * @return {@code out}
+	 */
+	public double[] dot(Vec3Array other, double[] out) {
+		if (other.size != size) {
+			throw new IllegalArgumentException("Sizes differ: " + size + " and " + other.size);
+		}
+		checkOut(out);
+		double[] x = this.x, y = this.y, z = this.z;
+		double[] ox = other.x, oy = other.y, oz = other.z;
+		for (int i = 0, n = size; i < n; i++) {
+			out[i] = x[i] * ox[i] + y[i] * oy[i] + z[i] * oz[i];
+		}
+		return out;
+	}
+
+	/**
+	 * Writes the squared distance of every vector to a point.
+	 *
+	 * @return {@code out}
+	 */
+	public double[] distanceSquared(double px, double py, double pz, double[] out) {
+		checkOut(out);
+		double[] x = this.x, y = this.y, z = this.z;
+		for (int i = 0, n = size; i < n; i++) {
+			double dx = x[i] - px;
+			double dy = y[i] - py;
+			double dz = z[i] - pz;
+			out[i] = dx * dx + dy * dy + dz * dz;
+		}
+		return out;
+	}
+
+	/**
+	 * Scales every vector to unit length. Zero vectors stay zero, as with
+	 * {@link Vec3#normalize()}.
+	 */
+	public void normalize() {
+		double[] x = this.x, y = this.y, z = this.z;
+		for (int i = 0, n = size; i < n; i++) {
+			double length = Math.sqrt(x[i] * x[i] + y[i] * y[i] + z[i] * z[i]);
+			// a select rather than a branch, so the loop still vectorizes
+			double inverse = length == 0 ? 0 : 1 / length;
+			x[i] *= inverse;
+			y[i] *= inverse;
+			z[i] *= inverse;
+		}
+	}
+
+	private void checkOut(double[] out) {
+		if (out.length < size) {
+			throw new IllegalArgumentException("Output holds " + out.length + " values, need " + size);
+		}
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		}
+	}
+}
@@ -1,6 +1,8 @@
 /* Licensed under Apache-2.0 2024. */
 package org.vicky.utilities;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -55,6 +57,10 @@ public class ANSIColor {
   public static final String STRIKETHROUGH = "\033[9m";
 
   private static final Map<String, String> COLOR_MAP = new HashMap<>();
+  // Compiled results of colorize(String). Bounded, since messages with values baked into them
+  // would otherwise grow it without limit.
+  private static final Cache<String, String> COMPILED =
+      Caffeine.newBuilder().maximumSize(1_024).build();
   // Regex pattern to match color markers like red[...] or purple[...]
   private static final Pattern COLOR_PATTERN =
       Pattern.compile("((?!#)[A-Za-z_]+|#[A-Fa-f0-9]{6})\\[([^\\]]+)\\]");
@@ -162,20 +168,100 @@ public class ANSIColor {
     if (message == null) {
       return "";
     }
-    while (true) {
-      Matcher matcher = COLOR_PATTERN.matcher(message);
-      if (!matcher.find()) {
-        break;
+    return COMPILED.get(message, ANSIColor::compileMarkup);
+  }
+
+  /**
+   * Same as {@link #colorize(String)}, but never reads or fills the cache of compiled markup. Use it
+   * for text built at runtime, which is unlikely to repeat and would only evict cached templates.
+   */
+  public static String colorizeUncached(String message) {
+    if (message == null) {
+      return "";
+    }
+    return compileMarkup(message);
+  }
+
+  /**
+   * Translates color markup in a single left-to-right pass. A marker is a name (letters and
+   * underscores) or a {@code #RRGGBB} hex code directly followed by {@code [}; its text runs to the
+   * first {@code ]} not closed by a nested marker. Markers that are never closed, or have no text,
+   * are kept as literal text.
+   */
+  private static String compileMarkup(String markup) {
+    StringBuilder out = new StringBuilder(markup.length() + 16);
+    compileMarkup(markup, 0, out, false);
+    return out.toString();
+  }
+
+  /**
+   * @return when {@code nested}, the index of the {@code ]} closing the current marker, or -1 if the
+   *     markup ended first; otherwise the markup's length
+   */
+  private static int compileMarkup(String markup, int from, StringBuilder out, boolean nested) {
+    int length = markup.length();
+    int i = from;
+    while (i < length) {
+      char c = markup.charAt(i);
+      if (c == ']' && nested) {
+        return i;
       }
-      String color = matcher.group(1).toLowerCase();
-      String text = matcher.group(2);
-      // Recursive processing of inner text (guard against null)
-      String processedText = colorize(text != null ? text : "");
-      String colorCode =
-          color.contains("#") ? ansiFromHex(color) : COLOR_MAP.getOrDefault(color, RESET);
-      message = matcher.replaceFirst(Matcher.quoteReplacement(colorCode + processedText + RESET));
+      int nameEnd = markerNameEnd(markup, i);
+      if (nameEnd == i) {
+        out.append(c);
+        i++;
+        continue;
+      }
+      if (nameEnd >= length || markup.charAt(nameEnd) != '[') {
+        // a plain word, not followed by a bracket
+        out.append(markup, i, nameEnd);
+        i = nameEnd;
+        continue;
+      }
+      String name = markup.substring(i, nameEnd).toLowerCase();
+      int mark = out.length();
+      out.append(name.startsWith("#") ? ansiFromHex(name) : COLOR_MAP.getOrDefault(name, RESET));
+      int close = compileMarkup(markup, nameEnd + 1, out, true);
+      if (close < 0 || close == nameEnd + 1) {
+        // unclosed or empty marker: keep its name and bracket as text and parse on from there
+        out.setLength(mark);
+        out.append(markup, i, nameEnd + 1);
+        i = nameEnd + 1;
+        continue;
+      }
+      out.append(RESET);
+      i = close + 1;
+    }
+    return nested ? -1 : length;
+  }
+
+  /**
+   * @return the end of a marker name starting at {@code i} (a word or a six digit hex code), or
+   *     {@code i} if none starts there
+   */
+  private static int markerNameEnd(String markup, int i) {
+    int length = markup.length();
+    if (markup.charAt(i) == '#') {
+      int end = i + 7;
+      if (end >= length || markup.charAt(end) != '[') {
+        return i;
+      }
+      for (int j = i + 1; j < end; j++) {
+        if (Character.digit(markup.charAt(j), 16) < 0) {
+          return i;
+        }
+      }
+      return end;
     }
-    return message;
+    int j = i;
+    while (j < length && isNameChar(markup.charAt(j))) {
+      j++;
+    }
+    return j;
+  }
+
+  private static boolean isNameChar(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
   }
 
   /**
@@ -583,5 +669,6 @@ public class ANSIColor {
    */
   public void addCustomColor(String colorName, String ansiCode) {
     COLOR_MAP.put(colorName.toLowerCase(), ansiCode);
+    COMPILED.invalidateAll();
   }
 }
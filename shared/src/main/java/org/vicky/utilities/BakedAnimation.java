@@ -0,0 +1,132 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.vicky.platform.utils.Vec3Array;
+
+/**
+ * A periodic {@link ShapeTemplate} pre-computed at a fixed number of frames.
+ * <p>
+ * Periodic shapes such as OSCILLATING_RINGS, PULSE_WAVES and WAVY_LINE repeat
+ * every 2π of animation angle. Baking samples one period into a single
+ * {@code float[]}, frame after frame, each frame holding the X, Y and Z
+ * offsets of every point. Playing a frame back is then an index into the table
+ * and a translate; the shape's steady climb ({@link ShapeTemplate#risePerRadian()})
+ * is added on top, since it does not repeat.
+ * </p>
+ * Tables are shared by every task baking the same template at the same frame
+ * count, and bounded twice: a table is capped at {@link #MAX_TABLE_BYTES}, with
+ * fewer frames baked when it would be larger, and all tables together at
+ * {@link #MAX_TOTAL_BYTES}, least recently used first out.
+ */
+public final class BakedAnimation {
+  /** Largest single table; shapes with many points get fewer frames. */
+  public static final int MAX_TABLE_BYTES = 1 << 20;
+  /** All baked tables together. */
+  public static final long MAX_TOTAL_BYTES = 32L << 20;
+  /** Fewest frames worth baking; below this the shape is played live. */
+  public static final int MIN_FRAMES = 8;
+
+  private static final double TWO_PI = 2 * Math.PI;
+  private static final Cache<Key, BakedAnimation> CACHE =
+      Caffeine.newBuilder()
+          .maximumWeight(MAX_TOTAL_BYTES)
+          .weigher((Key key, BakedAnimation baked) -> baked.bytes())
+          .build();
+
+  private final ShapeTemplate template;
+  private final int frames;
+  private final int size;
+  private final double rise;
+  // frame f holds x at [f * 3n, f * 3n + n), then y, then z
+  private final float[] table;
+
+  private BakedAnimation(ShapeTemplate template, int frames) {
+    this.template = template;
+    this.frames = frames;
+    this.size = template.size();
+    this.rise = template.risePerRadian();
+    this.table = new float[frames * size * 3];
+
+    Vec3Array points = new Vec3Array(size);
+    for (int f = 0; f < frames; f++) {
+      double angle = f * TWO_PI / frames;
+      template.place(angle, 0, -angle * rise, 0, points);
+      int base = f * size * 3;
+      double[] xs = points.xs();
+      double[] ys = points.ys();
+      double[] zs = points.zs();
+      for (int i = 0; i < size; i++) {
+        table[base + i] = (float) xs[i];
+        table[base + size + i] = (float) ys[i];
+        table[base + 2 * size + i] = (float) zs[i];
+      }
+    }
+  }
+
+  /**
+   * Returns the shared baked animation of a template.
+   *
+   * @param template the shape to bake
+   * @param frames   frames per period; fewer are baked if the table would exceed
+   *                 {@link #MAX_TABLE_BYTES}
+   * @return the animation, or {@code null} if the shape is not periodic or
+   *     cannot be baked with at least {@link #MIN_FRAMES} frames
+   */
+  public static BakedAnimation of(ShapeTemplate template, int frames) {
+    if (!template.isPeriodic() || frames < MIN_FRAMES) {
+      return null;
+    }
+    int bytesPerFrame = Math.max(1, template.size() * 3 * Float.BYTES);
+    frames = Math.min(frames, MAX_TABLE_BYTES / bytesPerFrame);
+    if (frames < MIN_FRAMES) {
+      return null;
+    }
+    int bakedFrames = frames;
+    return CACHE.get(new Key(template, bakedFrames), key -> new BakedAnimation(template, bakedFrames));
+  }
+
+  public ShapeTemplate template() {
+    return template;
+  }
+
+  /** Frames baked per period of 2π. */
+  public int frames() {
+    return frames;
+  }
+
+  /** Memory held by the table. */
+  public int bytes() {
+    return table.length * Float.BYTES;
+  }
+
+  /**
+   * Writes the baked frame nearest to an animation angle, translated to an
+   * origin, into a buffer, replacing its contents. Matches
+   * {@link ShapeTemplate#place(double, double, double, double, Vec3Array)} to
+   * within the spacing of the frames.
+   *
+   * @param angle the animation angle in radians
+   */
+  public void place(double angle, double originX, double originY, double originZ, Vec3Array out) {
+    double position = angle / TWO_PI * frames;
+    int frame = (int) Math.floorMod(Math.round(position), (long) frames);
+    int base = frame * size * 3;
+    originY += angle * rise;
+
+    out.resize(size);
+    double[] xs = out.xs();
+    double[] ys = out.ys();
+    double[] zs = out.zs();
+    float[] table = this.table;
+    for (int i = 0; i < size; i++) {
+      xs[i] = originX + table[base + i];
+      ys[i] = originY + table[base + size + i];
+      zs[i] = originZ + table[base + 2 * size + i];
+    }
+  }
+
+  // templates are cached and compared by identity, so one per parameter set
+  private record Key(ShapeTemplate template, int frames) {}
+}
@@ -4,26 +4,38 @@ import org.vicky.platform.PlatformLogger;
 import org.vicky.platform.defaults.DefaultPlatformLogger;
 
 import java.util.Objects;
-import java.util.concurrent.*;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * AsyncContextLogger - non-blocking context logger that offloads actual logging to a single background thread.
+ * AsyncContextLogger - non-blocking context logger that offloads actual logging to the shared
+ * {@link AsyncLogDispatcher}.
+ * <p>
+ * Calls are captured into reusable slots of a lock-free ring buffer ({@link LogRingBuffer}) instead of
+ * being wrapped in a closure, so a log call on a hot path costs one CAS and a few field writes. All loggers of
+ * one context (type and name) share that context's lane of the dispatcher, so their messages are written in
+ * the order they were logged; all formatting happens on the dispatcher's worker threads. The lane's settings
+ * (overflow policy, coalescing, file sink) belong to the context, so setting them on one of its loggers
+ * applies to all of them.
  * <p>
  * Usage:
  * AsyncContextLogger al = new AsyncContextLogger(ContextType.FEATURE, "MyFeature", new DefaultPlatformLogger("MyFeature"));
  * al.print("Hello {}", "world"); // returns immediately
- * al.shutdownAndFlush(2, TimeUnit.SECONDS); // at shutdown
+ * AsyncLogDispatcher.shutdown(2, TimeUnit.SECONDS); // once, at shutdown
+ * <p>
+ * Loggers that live shorter than the plugin should be {@linkplain #close() closed} when done; a logger that is
+ * simply dropped has its lane retired once it is garbage collected.
  */
-public class AsyncContextLogger extends ContextLogger {
+public class AsyncContextLogger extends ContextLogger implements AutoCloseable {
 
-    private final BlockingQueue<Runnable> queue;
-    private final ExecutorService executor;
+    private final AsyncLogDispatcher dispatcher;
+    private final AsyncLogDispatcher.Registration registration;
+    private final AsyncLogDispatcher.Lane lane;
     private final AtomicLong dropped = new AtomicLong(0);
-    private final int capacity;
+    private volatile boolean closed;
 
     /**
-     * Create with default capacity (10_000) and a daemon worker thread.
+     * Create with default capacity (10_000).
      */
     public AsyncContextLogger(ContextType context, String contextName, PlatformLogger logger) {
         this(context, contextName, logger, 10_000);
@@ -32,23 +44,15 @@ public class AsyncContextLogger extends ContextLogger {
     /**
      * Create with configurable queue capacity.
      *
-     * @param capacity max queued entries before dropping
+     * @param capacity max queued entries before dropping, rounded up to a power of two; ignored if the
+     *                 context already has a lane
      */
     public AsyncContextLogger(ContextType context, String contextName, PlatformLogger logger, int capacity) {
         super(context, contextName, logger);
 
-        this.capacity = Math.max(128, capacity);
-        this.queue = new ArrayBlockingQueue<>(this.capacity);
-
-        // single-threaded daemon executor with a sensible name
-        this.executor = Executors.newSingleThreadExecutor(r -> {
-            Thread t = new Thread(r, "AsyncContextLogger-" + contextName);
-            t.setDaemon(true);
-            return t;
-        });
-
-        // worker: loop pulling runnables and executing them
-        this.executor.submit(this::workerLoop);
+        this.dispatcher = AsyncLogDispatcher.shared();
+        this.registration = dispatcher.register(this, Math.max(128, capacity));
+        this.lane = registration.lane;
     }
 
     /**
@@ -58,243 +62,172 @@ public class AsyncContextLogger extends ContextLogger {
         this(context, contextName, new DefaultPlatformLogger(contextName));
     }
 
-    // Utility to copy varargs into a safe immutable array for background use
-    private static Object[] copyArgs(Object[] args) {
-        if (args == null || args.length == 0) return new Object[0];
-        Object[] copy = new Object[args.length];
-        System.arraycopy(args, 0, copy, 0, args.length);
-        return copy;
-    }
-
     // Provide a factory that uses default platform logger if needed
     public static AsyncContextLogger createDefault(ContextType context, String contextName) {
         return new AsyncContextLogger(context, contextName, new org.vicky.platform.defaults.DefaultPlatformLogger(contextName));
     }
 
-    // Worker loop: blocking poll but exits on executor shutdown
-    private void workerLoop() {
+    /**
+     * Capture a call into a ring slot. If the ring is full the {@link OverflowPolicy} decides whether the
+     * entry is dropped, makes room or waits; by default it is dropped and a counter increments. Once this
+     * logger is closed or the dispatcher is shut down, calls are written synchronously so late shutdown
+     * messages are not lost.
+     */
+    @Override
+    protected void emit(Form form, LogType type, LogPostType effect, String message, Object[] args) {
+        if (closed || !dispatcher.isRunning()) {
+            super.emit(form, type, effect, message, args);
+            return;
+        }
+        // announce the call before re-checking, so the worker neither drops the lane nor stops while a
+        // producer that saw it open is still publishing
+        lane.inflight.incrementAndGet();
         try {
-            while (!Thread.currentThread().isInterrupted() && !executor.isShutdown()) {
-                try {
-                    Runnable task = queue.poll(250, TimeUnit.MILLISECONDS);
-                    if (task != null) {
-                        try {
-                            task.run(); // task typically calls AsyncContextLogger.super.print(...)
-                        } catch (Throwable t) {
-                            // swallow exceptions from tasks but log minimal notice directly
-                            // Avoid calling our own print (would enqueue), so use platform logger directly:
-                            try {
-                                logger.error("AsyncContextLogger task exception: " + t.getMessage());
-                            } catch (Throwable ignored) {
-                                // last resort: nothing to do
-                            }
-                        }
-                    }
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                }
+            if (closed || !dispatcher.isRunning()) {
+                super.emit(form, type, effect, message, args);
+                return;
             }
-
-            // Drain remaining tasks on shutdown
-            Runnable r;
-            while ((r = queue.poll()) != null) {
-                try {
-                    r.run();
-                } catch (Throwable ignored) {
-                }
+            OverflowPolicy policy = lane.overflowPolicy;
+            LogRingBuffer ring = lane.ring;
+            if (!policy.admit(ring)) {
+                dropped.incrementAndGet();
+                return;
             }
-        } catch (Throwable fatal) {
-            try {
-                logger.error("AsyncContextLogger worker fatal error: " + fatal.getMessage());
-            } catch (Throwable ignore) {
+            long seq = ring.tryClaim();
+            if (seq < 0 && (seq = policy.onFull(lane)) < 0) {
+                dropped.incrementAndGet();
+                // We never write synchronously here; the policy decides whether the caller may wait.
+                return;
             }
+            ring.get(seq).set(this, form, type, effect, message, args);
+            ring.publish(seq);
+        } finally {
+            lane.inflight.decrementAndGet();
         }
+        lane.worker.signal();
     }
 
     /**
-     * Enqueue a runnable non-blocking. If the queue is full the entry is dropped and a counter increments.
-     * The runnable should call the superclass printing method (i.e. AsyncContextLogger.super.print(...))
-     * so we avoid re-enqueue recursion.
+     * Captured calls outlive the caller's stack, so primitive arguments are boxed here, after the level
+     * check, and queued like any other argument.
      */
-    private void enqueueNonBlocking(Runnable r) {
-        Objects.requireNonNull(r);
-        boolean offered = queue.offer(r); // non-blocking
-        if (!offered) {
-            dropped.incrementAndGet();
-            // We intentionally do not block or call super synchronously to keep non-blocking guarantee.
-        }
+    @Override
+    protected void emit(Form form, LogType type, String message, long value) {
+        emit(form, type, null, message, new Object[]{value});
+    }
+
+    @Override
+    protected void emit(Form form, LogType type, String message, double value) {
+        emit(form, type, null, message, new Object[]{value});
     }
 
     // Expose some management methods
+
+    /**
+     * @return messages rejected at the call site, by a full lane or by sampling. Old messages discarded
+     * by {@link OverflowPolicy#dropOldest()} are reported by that policy.
+     */
     public long getDroppedCount() {
         return dropped.get();
     }
 
-    public int getQueueCapacity() {
-        return capacity;
+    public OverflowPolicy overflowPolicy() {
+        return lane.overflowPolicy;
     }
 
-    public int getQueueSize() {
-        return queue.size();
-    }
-
-    // ------------------------
-    // Override public print APIs to capture calls and enqueue runnables
-    // ------------------------
-
     /**
-     * Ask the logger to finish queued items and stop within the timeout.
-     * Non-blocking for the caller until this method is invoked.
-     *
-     * @param timeout how long to wait for shutdown
-     * @param unit    time unit
-     * @return true if shutdown completed within timeout, false otherwise
-     * @throws InterruptedException if interrupted while waiting
+     * Choose what happens when this context's lane is full. Policies keep their own counters, so pass a
+     * fresh instance per context.
      */
-    public boolean shutdownAndFlush(long timeout, TimeUnit unit) throws InterruptedException {
-        // stop accepting new tasks by shutting down executor after worker drains queue
-        // We first stop submitting new tasks by shutting down executor after we submit a "poison" task.
-        // But because tasks simply call super.print, we can just shutdown executor after waiting for queue drain.
-        executor.shutdown(); // prevents new runnables from being executed (but queue still contains tasks)
-        try {
-            return executor.awaitTermination(timeout, unit);
-        } finally {
-            if (!executor.isTerminated()) {
-                executor.shutdownNow();
-            }
-        }
+    public void setOverflowPolicy(OverflowPolicy policy) {
+        lane.overflowPolicy = Objects.requireNonNull(policy);
     }
 
     /**
-     * Force immediate shutdown (best-effort).
+     * Fold identical consecutive messages into one line followed by a
+     * "(previous message repeated N more times)" summary. Useful for loggers used inside per-tick loops,
+     * where a recurring failure would otherwise flood the console.
      */
-    public void forceShutdownNow() {
-        executor.shutdownNow();
-    }
-
-    @Override
-    public void print(String message) {
-        // capture immutable snapshot minimal work on caller thread
-        final String m = message;
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m));
-    }
-
-    @Override
-    public void debug(String message) {
-        // capture immutable snapshot minimal work on caller thread
-        final String m = message;
-        enqueueNonBlocking(() -> AsyncContextLogger.super.debug(m));
+    public void setCoalesceDuplicates(boolean coalesce) {
+        lane.coalesce = coalesce;
     }
 
-    @Override
-    public void print(String message, boolean isError) {
-        final String m = message;
-        final boolean e = isError;
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m, e));
+    public boolean isCoalescingDuplicates() {
+        return lane.coalesce;
     }
 
-    @Override
-    public void print(String message, boolean isError, Object... args) {
-        final String m = message;
-        final boolean e = isError;
-        final Object[] a = copyArgs(args);
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m, e, a));
-    }
-
-    @Override
-    public void print(String message, Object... args) {
-        final String m = message;
-        final Object[] a = copyArgs(args);
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m, a));
-    }
-
-    @Override
-    public void debug(String message, Object... args) {
-        final String m = message;
-        final Object[] a = copyArgs(args);
-        enqueueNonBlocking(() -> AsyncContextLogger.super.debug(m, a));
-    }
-
-    @Override
-    public void print(String message, LogType type) {
-        final String m = message;
-        final LogType t = type;
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m, t));
-    }
-
-    @Override
-    public void print(String message, LogType type, Object... args) {
-        final String m = message;
-        final LogType t = type;
-        final Object[] a = copyArgs(args);
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m, t, a));
-    }
-
-    @Override
-    public void print(String message, LogType type, LogPostType effect) {
-        final String m = message;
-        final LogType t = type;
-        final LogPostType e = effect;
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m, t, e));
+    /**
+     * @return messages folded into a "repeated" summary instead of being written
+     */
+    public long getCoalescedCount() {
+        return lane.coalesced.get();
     }
 
-    @Override
-    public void print(String message, LogType type, LogPostType effect, Object... args) {
-        final String m = message;
-        final LogType t = type;
-        final LogPostType e = effect;
-        final Object[] a = copyArgs(args);
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m, t, e, a));
+    /**
+     * Also write this context's lines to a JSON-lines file. The sink may be shared by several contexts.
+     *
+     * @param sink         the file sink, or {@code null} to stop writing to a file
+     * @param keepConsole  whether lines still go to the platform logger; pass false to move verbose
+     *                     contexts off the console entirely
+     */
+    public void setFileSink(LogFileSink sink, boolean keepConsole) {
+        lane.console = keepConsole || sink == null;
+        lane.fileSink = sink;
     }
 
-    @Override
-    public void print(String message, LogType type, boolean shouldAffectMessage) {
-        final String m = message;
-        final LogType t = type;
-        final boolean s = shouldAffectMessage;
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m, t, s));
+    public LogFileSink getFileSink() {
+        return lane.fileSink;
     }
 
-    @Override
-    public void debug(String message, boolean shouldAffectMessage) {
-        final String m = message;
-        final boolean s = shouldAffectMessage;
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m, s));
+    public int getQueueCapacity() {
+        return lane.ring.capacity();
     }
 
-    @Override
-    public void print(String message, LogType type, boolean shouldAffectMessage, Object... args) {
-        final String m = message;
-        final LogType t = type;
-        final boolean s = shouldAffectMessage;
-        final Object[] a = copyArgs(args);
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m, t, s, a));
+    public int getQueueSize() {
+        return lane.ring.size();
     }
 
+    /**
+     * Detach this logger from the dispatcher. What is already queued is still written, by the worker; the
+     * lane is dropped once the context's last logger is closed. Later calls are written synchronously.
+     * Closing twice has no effect.
+     */
     @Override
-    public void debug(String message, boolean shouldAffectMessage, Object... args) {
-        final String m = message;
-        final boolean s = shouldAffectMessage;
-        final Object[] a = copyArgs(args);
-        enqueueNonBlocking(() -> AsyncContextLogger.super.debug(m, s, a));
+    public void close() {
+        closed = true;
+        dispatcher.close(registration);
     }
 
-    @Override
-    public void print(String message, LogType type, LogPostType effect, boolean shouldAffectMessage) {
-        final String m = message;
-        final LogType t = type;
-        final LogPostType e = effect;
-        final boolean s = shouldAffectMessage;
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m, t, e, s));
+    /**
+     * Wait for this logger's queued items to be written, then detach it from the dispatcher. Later calls
+     * are written synchronously.
+     *
+     * @param timeout how long to wait for the flush
+     * @param unit    time unit
+     * @return true if the queue was drained within timeout, false otherwise
+     * @throws InterruptedException if interrupted while waiting
+     * @deprecated the worker threads are shared now; call {@link AsyncLogDispatcher#flushAll(long, TimeUnit)}
+     * and {@link AsyncLogDispatcher#shutdown(long, TimeUnit)} once at shutdown instead.
+     */
+    @Deprecated
+    public boolean shutdownAndFlush(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            return dispatcher.flush(lane, timeout, unit);
+        } finally {
+            closed = true;
+            dispatcher.unregister(registration);
+        }
     }
 
-    @Override
-    public void print(String message, LogType type, LogPostType effect, boolean shouldAffectMessage, Object... args) {
-        final String m = message;
-        final LogType t = type;
-        final LogPostType e = effect;
-        final boolean s = shouldAffectMessage;
-        final Object[] a = copyArgs(args);
-        enqueueNonBlocking(() -> AsyncContextLogger.super.print(m, t, e, s, a));
+    /**
+     * Detach this logger immediately. If it is the last logger of its context, anything still queued is
+     * discarded (best-effort).
+     *
+     * @deprecated see {@link #shutdownAndFlush(long, TimeUnit)}
+     */
+    @Deprecated
+    public void forceShutdownNow() {
+        closed = true;
+        dispatcher.unregister(registration);
     }
 }
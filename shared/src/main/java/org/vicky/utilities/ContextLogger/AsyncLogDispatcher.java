@@ -0,0 +1,496 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities.ContextLogger;
+
+import org.vicky.platform.PlatformLogger;
+import org.vicky.utilities.ContextLogger.ContextLogger.LogType;
+
+import java.lang.ref.Cleaner;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shared background dispatcher for every {@link AsyncContextLogger}.
+ * <p>
+ * Every context, a context type and name, has one lane (a
+ * {@link LogRingBuffer}) shared by all loggers created for it, and every lane
+ * is pinned to exactly one worker thread. A lane therefore keeps a single
+ * consumer and messages of one context are written in the order they were
+ * logged, whichever logger instance logged them, while all contexts share a
+ * small, fixed pool of threads instead of one idle thread per logger. The
+ * lane's capacity is that of the first logger of its context.
+ * </p>
+ * The worker count is read from the {@code vicky.logging.workers} system
+ * property, or can be set with {@link #configure(int)} before the first
+ * logger is created. At shutdown call {@link #flushAll(long, TimeUnit)} and
+ * {@link #shutdown(long, TimeUnit)} once instead of flushing every logger.
+ * <p>
+ * A lane is removed once all its loggers are {@linkplain AsyncContextLogger#close()
+ * closed} or garbage collected, no call is still being captured into it and
+ * everything queued has been written, so short-lived loggers do not accumulate
+ * lanes. Lanes never hold their loggers strongly for that reason.
+ * </p>
+ */
+public final class AsyncLogDispatcher {
+	/**
+	 * Max events drained from one lane before the worker moves to the next. This is
+	 * also the size of the batch handed to {@link PlatformLogger#logBatch}.
+	 */
+	private static final int BATCH_SIZE = 256;
+	/** Upper bound on how long an idle worker sleeps without being signalled. */
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+	/**
+	 * How long identical consecutive messages are folded into one before a
+	 * "repeated" summary is written, even if the repetition continues.
+	 */
+	private static final long COALESCE_WINDOW_MILLIS = 5_000;
+
+	private static final Object LOCK = new Object();
+	/** Retires the lanes of loggers that became unreachable without being closed. */
+	private static final Cleaner CLEANER = Cleaner.create();
+	private static int configuredWorkers = Integer.getInteger("vicky.logging.workers", 1);
+	private static volatile AsyncLogDispatcher shared;
+
+	private final Worker[] workers;
+	/** Live lanes by context; guarded by itself. */
+	private final Map<LaneKey, Lane> lanes = new HashMap<>();
+	private volatile boolean running = true;
+
+	private AsyncLogDispatcher(int workerCount) {
+		this.workers = new Worker[workerCount];
+		for (int i = 0; i < workerCount; i++) {
+			workers[i] = new Worker(this, "AsyncContextLogger-worker-" + i);
+		}
+		for (Worker worker : workers) {
+			worker.thread.start();
+		}
+	}
+
+	/**
+	 * @return the running shared dispatcher, starting it if needed
+	 */
+	public static AsyncLogDispatcher shared() {
+		AsyncLogDispatcher dispatcher = shared;
+		if (dispatcher == null) {
+			synchronized (LOCK) {
+				dispatcher = shared;
+				if (dispatcher == null) {
+					dispatcher = new AsyncLogDispatcher(configuredWorkers);
+					shared = dispatcher;
+				}
+			}
+		}
+		return dispatcher;
+	}
+
+	/**
+	 * Sets the number of worker threads. Only allowed before the shared dispatcher
+	 * has started (or after it was shut down).
+	 *
+	 * @param workerCount
+	 *            number of worker threads, at least 1
+	 */
+	public static void configure(int workerCount) {
+		if (workerCount < 1)
+			throw new IllegalArgumentException("Worker count must be at least 1, got " + workerCount);
+		synchronized (LOCK) {
+			if (shared != null && shared.workers.length != workerCount)
+				throw new IllegalStateException("AsyncLogDispatcher is already running with "
+						+ shared.workers.length + " workers.");
+			configuredWorkers = workerCount;
+		}
+	}
+
+	/**
+	 * Waits until every lane of the shared dispatcher has been drained.
+	 *
+	 * @return true if all lanes were empty before the timeout
+	 */
+	public static boolean flushAll(long timeout, TimeUnit unit) throws InterruptedException {
+		AsyncLogDispatcher dispatcher = shared;
+		return dispatcher == null || dispatcher.flush(timeout, unit);
+	}
+
+	/**
+	 * Drains all lanes and stops the shared dispatcher's workers. Loggers that are
+	 * still used afterwards write synchronously, and the next new logger starts a
+	 * fresh dispatcher.
+	 *
+	 * @return true if all workers stopped before the timeout
+	 */
+	public static boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		AsyncLogDispatcher dispatcher;
+		synchronized (LOCK) {
+			dispatcher = shared;
+			shared = null;
+		}
+		return dispatcher == null || dispatcher.stop(timeout, unit);
+	}
+
+	boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Joins the lane of the owner's context, creating it if this is the context's
+	 * first live logger.
+	 *
+	 * @return the lane and the handle that leaves it again
+	 */
+	Registration register(AsyncContextLogger owner, int capacity) {
+		LaneKey key = new LaneKey(owner.context, owner.contextName);
+		Lane lane;
+		synchronized (lanes) {
+			lane = lanes.get(key);
+			if (lane == null) {
+				int hash = (owner.context.ordinal() * 31) + owner.contextName.hashCode();
+				Worker worker = workers[Math.floorMod(hash, workers.length)];
+				lane = new Lane(key, new LogRingBuffer(capacity), worker);
+				lanes.put(key, lane);
+				worker.lanes.add(lane);
+			}
+			lane.owners++;
+		}
+		Registration registration = new Registration(lane);
+		// the cleaning action must not capture the owner
+		registration.cleanable = CLEANER.register(owner, () -> leave(registration, false));
+		return registration;
+	}
+
+	/**
+	 * Leaves a lane; once its last logger has left, the worker drops it after
+	 * writing what is still queued. Safe to call more than once.
+	 */
+	void close(Registration registration) {
+		registration.cleanable.clean();
+	}
+
+	/**
+	 * Leaves a lane; if this was its last logger, the lane is dropped immediately,
+	 * discarding anything still queued.
+	 */
+	void unregister(Registration registration) {
+		leave(registration, true);
+		registration.cleanable.clean();
+	}
+
+	private void leave(Registration registration, boolean discard) {
+		if (!registration.left.compareAndSet(false, true))
+			return;
+		Lane lane = registration.lane;
+		synchronized (lanes) {
+			if (--lane.owners > 0)
+				return;
+			lane.retired = true;
+			lanes.remove(lane.key, lane);
+		}
+		if (discard)
+			lane.worker.lanes.remove(lane);
+		lane.worker.signal();
+	}
+
+	/**
+	 * Waits until a single lane has been drained.
+	 */
+	boolean flush(Lane lane, long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!lane.ring.isEmpty()) {
+			if (!running || System.nanoTime() - deadline >= 0)
+				return false;
+			lane.worker.signal();
+			Thread.sleep(1);
+		}
+		return true;
+	}
+
+	private boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (Worker worker : workers) {
+			for (Lane lane : worker.lanes) {
+				long remaining = deadline - System.nanoTime();
+				if (!flush(lane, Math.max(0, remaining), TimeUnit.NANOSECONDS))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
+		running = false;
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		boolean stopped = true;
+		for (Worker worker : workers) {
+			LockSupport.unpark(worker.thread);
+		}
+		for (Worker worker : workers) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining > 0)
+				TimeUnit.NANOSECONDS.timedJoin(worker.thread, remaining);
+			if (worker.thread.isAlive()) {
+				worker.thread.interrupt();
+				stopped = false;
+			}
+		}
+		return stopped;
+	}
+
+	private record LaneKey(ContextLogger.ContextType context, String name) {
+	}
+
+	/** A logger's membership in its context's lane. */
+	static final class Registration {
+		final Lane lane;
+		private final AtomicBoolean left = new AtomicBoolean();
+		private Cleaner.Cleanable cleanable;
+
+		private Registration(Lane lane) {
+			this.lane = lane;
+		}
+	}
+
+	/**
+	 * One context's ring, bound to the worker that consumes it, and the settings
+	 * shared by the context's loggers. Events carry their logger while queued;
+	 * the lane itself does not keep any logger reachable.
+	 */
+	static final class Lane {
+		private final LaneKey key;
+		final LogRingBuffer ring;
+		final Worker worker;
+		/**
+		 * Producers between their closed/running check and publishing. The worker
+		 * keeps a retired lane, and keeps draining at shutdown, until this is zero.
+		 */
+		final AtomicInteger inflight = new AtomicInteger();
+		volatile OverflowPolicy overflowPolicy = OverflowPolicy.dropNewest();
+		/** Oldest messages producers asked the worker to discard. */
+		final AtomicInteger evictions = new AtomicInteger();
+		final AtomicLong coalesced = new AtomicLong();
+		volatile boolean coalesce;
+		volatile LogFileSink fileSink;
+		/** Whether lines still go to the owner's platform logger while a file sink is set. */
+		volatile boolean console = true;
+		/** Set once every owner is closed or collected; the worker removes the lane when it is empty. */
+		volatile boolean retired;
+		// live owners; guarded by the dispatcher's lane map
+		private int owners;
+
+		// coalescing state, worker thread only
+		private String lastLine;
+		private PlatformLogger.Level lastLevel;
+		private LogType lastType;
+		// the logger of the folded message, held only until its summary is written
+		private ContextLogger repeatSource;
+		private int repeats;
+		private long repeatSince;
+
+		private Lane(LaneKey key, LogRingBuffer ring, Worker worker) {
+			this.key = key;
+			this.ring = ring;
+			this.worker = worker;
+		}
+
+		// read in this order: a producer announces itself before re-checking whether its logger is closed
+		private boolean done() {
+			return retired && inflight.get() == 0 && ring.isEmpty();
+		}
+	}
+
+	static final class Worker implements Runnable {
+		final List<Lane> lanes = new CopyOnWriteArrayList<>();
+		final Thread thread;
+		private final AsyncLogDispatcher dispatcher;
+		private final PlatformLogger.Batch batch = new PlatformLogger.Batch(BATCH_SIZE);
+		private final LogRingBuffer.Handler collector = this::collect;
+		// the platform logger the pending batch goes to
+		private PlatformLogger target;
+		private Lane current;
+		private volatile boolean parked;
+
+		private Worker(AsyncLogDispatcher dispatcher, String name) {
+			this.dispatcher = dispatcher;
+			this.thread = new Thread(this, name);
+			this.thread.setDaemon(true);
+		}
+
+		/** Wakes the worker if it is idle. Called by producers after publishing. */
+		void signal() {
+			if (parked)
+				LockSupport.unpark(thread);
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (dispatcher.running && !Thread.currentThread().isInterrupted()) {
+					if (drainOnce() == 0) {
+						parked = true;
+						// re-check after raising the flag so a concurrent publish can't be missed
+						if (dispatcher.running && !hasPublished())
+							LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+						parked = false;
+					}
+				}
+
+				// Drain remaining events on shutdown, including those of producers that
+				// passed their running check just before it was cleared
+				while (true) {
+					// read before draining: once no producer is in flight, every claimed slot is published
+					boolean pending = inflight();
+					if (drainOnce() == 0 && !pending)
+						break;
+					Thread.onSpinWait();
+				}
+				for (Lane lane : lanes) {
+					if (lane.repeats > 0) {
+						writeRepeats(lane);
+						flush();
+					}
+					LogFileSink sink = lane.fileSink;
+					if (sink != null)
+						sink.flush();
+				}
+			} catch (Throwable fatal) {
+				System.err.println("AsyncContextLogger worker fatal error: " + fatal.getMessage());
+			}
+		}
+
+		private int drainOnce() {
+			int drained = 0;
+			for (Lane lane : lanes) {
+				int evictions = lane.evictions.getAndSet(0);
+				if (evictions > 0)
+					lane.overflowPolicy.onEvicted(lane.ring.skip(evictions));
+				current = lane;
+				int n = lane.ring.drain(collector, BATCH_SIZE);
+				drained += n;
+				boolean done = lane.done();
+				if (lane.repeats > 0
+						&& (done || System.currentTimeMillis() - lane.repeatSince >= COALESCE_WINDOW_MILLIS))
+					writeRepeats(lane);
+				flush();
+				LogFileSink sink = lane.fileSink;
+				if (sink != null && (n > 0 || done))
+					sink.flush();
+				if (done)
+					lanes.remove(lane);
+			}
+			current = null;
+			return drained;
+		}
+
+		// Render a captured call into the batch through its owner's formatting path
+		private void collect(LogEvent event) {
+			Lane lane = current;
+			try {
+				LogFileSink sink = lane.fileSink;
+				if (sink != null && !lane.console && !lane.coalesce) {
+					// file only: the console line is never needed
+					if (event.source.isEnabled(event.type))
+						sink.append(event.timestamp, ContextLogger.levelOf(event.form, event.type), event.type,
+								event.source, event.template, event.args(), event.argCount);
+					return;
+				}
+				String line = event.source.render(event.form, event.type, event.effect, event.template, event.args(),
+						event.argCount);
+				if (line == null)
+					return;
+				PlatformLogger.Level level = ContextLogger.levelOf(event.form, event.type);
+				if (lane.coalesce) {
+					if (level == lane.lastLevel && line.equals(lane.lastLine)) {
+						if (lane.repeats++ == 0) {
+							lane.repeatSince = event.timestamp;
+							lane.repeatSource = event.source;
+						}
+						lane.coalesced.incrementAndGet();
+						if (event.timestamp - lane.repeatSince >= COALESCE_WINDOW_MILLIS)
+							writeRepeats(lane);
+						return;
+					}
+					if (lane.repeats > 0)
+						writeRepeats(lane);
+					lane.lastLine = line;
+					lane.lastLevel = level;
+					lane.lastType = event.type;
+				}
+				output(lane, event.source, event.timestamp, level, event.type, line, event.template, event.args(),
+						event.argCount);
+			} catch (Throwable t) {
+				// swallow exceptions from rendering but keep a minimal notice in the batch
+				target(event.source.logger);
+				batch.add(PlatformLogger.Level.ERROR, "AsyncContextLogger task exception: " + t.getMessage());
+			}
+		}
+
+		private void writeRepeats(Lane lane) {
+			String template = "(previous message repeated {} more times)";
+			Object[] args = {lane.repeats};
+			ContextLogger source = lane.repeatSource;
+			String line = source.render(ContextLogger.Form.TAGGED, lane.lastType, null, template, args, 1);
+			if (line != null)
+				output(lane, source, System.currentTimeMillis(), lane.lastLevel, lane.lastType, line, template, args,
+						1);
+			lane.repeats = 0;
+			lane.repeatSource = null;
+		}
+
+		private void output(Lane lane, ContextLogger source, long timestamp, PlatformLogger.Level level, LogType type,
+				String line, String template, Object[] args, int argCount) {
+			LogFileSink sink = lane.fileSink;
+			if (sink != null) {
+				sink.append(timestamp, level, type, source, template, args, argCount);
+				if (!lane.console)
+					return;
+			}
+			target(source.logger);
+			batch.add(level, line);
+		}
+
+		// loggers of one context may write to different platform loggers; keep each batch to one
+		private void target(PlatformLogger logger) {
+			if (logger != target) {
+				flush();
+				target = logger;
+			}
+		}
+
+		private void flush() {
+			if (batch.isEmpty())
+				return;
+			PlatformLogger logger = target;
+			try {
+				logger.logBatch(batch);
+			} catch (Throwable t) {
+				try {
+					logger.error("AsyncContextLogger batch exception: " + t.getMessage());
+				} catch (Throwable ignored) {
+					// last resort: nothing to do
+				}
+			} finally {
+				batch.clear();
+			}
+		}
+
+		private boolean inflight() {
+			for (Lane lane : lanes) {
+				if (lane.inflight.get() > 0)
+					return true;
+			}
+			return false;
+		}
+
+		private boolean hasPublished() {
+			for (Lane lane : lanes) {
+				if (lane.ring.hasPublished())
+					return true;
+			}
+			return false;
+		}
+	}
+}
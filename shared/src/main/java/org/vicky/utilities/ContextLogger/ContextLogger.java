@@ -6,8 +6,8 @@ import org.vicky.platform.PlatformPlugin;
 import org.vicky.platform.defaults.DefaultPlatformLogger;
 import org.vicky.utilities.ANSIColor;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * ContextLogger provides a structured logging utility with ANSI color
@@ -19,10 +19,16 @@ import java.util.List;
  * </p>
  */
 public class ContextLogger {
+	static final Object[] NO_ARGS = new Object[0];
+
 	protected final ContextType context;
 	protected final String contextName;
 	protected final PlatformLogger logger;
-	private int requiredLogLevel = PlatformPlugin.isInitialised() ? PlatformPlugin.logLevel() : -2;
+	private final LogLevels.Cell levelCell;
+	// Colorized context tags per LogType, built on first use. Racing threads build
+	// equal strings, so the arrays need no locking.
+	private final String[] tags = new String[LogType.values().length];
+	private final String[] shortTags = new String[LogType.values().length];
 
 	/**
 	 * Constructs a ContextLogger with the specified context type and context name.
@@ -36,6 +42,7 @@ public class ContextLogger {
 	public ContextLogger(ContextType context, String contextName, PlatformLogger logger) {
 		this.context = context;
 		this.contextName = contextName.toUpperCase();
+		this.levelCell = LogLevels.cell(context, this.contextName);
 		if (logger instanceof DefaultPlatformLogger) {
 			this.logger = PlatformPlugin.isInitialised()
 					? (PlatformPlugin.logger() != null
@@ -49,6 +56,7 @@ public class ContextLogger {
 	public ContextLogger(ContextType context, String contextName) {
 		this.context = context;
 		this.contextName = contextName.toUpperCase();
+		this.levelCell = LogLevels.cell(context, this.contextName);
 		this.logger = PlatformPlugin.isInitialised()
 				? (PlatformPlugin.logger() != null ? PlatformPlugin.logger() : new DefaultPlatformLogger(contextName))
 				: new DefaultPlatformLogger(contextName);
@@ -104,11 +112,7 @@ public class ContextLogger {
 	 *            The message to log.
 	 */
 	public void debug(String message) {
-		if (requiredLogLevel > LogType.DEBUG.level)
-			return;
-		String contextTag = createTag(LogType.DEBUG);
-		String finalContext = contextTag + message;
-		logger.info(finalContext);
+		submit(Form.TAGGED, LogType.DEBUG, null, message, NO_ARGS);
 	}
 
 	/**
@@ -120,11 +124,7 @@ public class ContextLogger {
 	 */
 	@Deprecated
 	public void print(String message) {
-		if (requiredLogLevel > LogType.BASIC.level)
-			return;
-		String contextTag = createTag(LogType.BASIC);
-		String finalContext = contextTag + message;
-		logger.info(finalContext);
+		submit(Form.TAGGED, LogType.BASIC, null, message, NO_ARGS);
 	}
 
 	/**
@@ -139,14 +139,7 @@ public class ContextLogger {
 	 */
 	@Deprecated
 	public void print(String message, boolean isError) {
-		if (requiredLogLevel > (isError ? LogType.ERROR.level : LogType.BASIC.level))
-			return;
-		String contextTag = createTag(isError ? LogType.ERROR : LogType.BASIC);
-		String finalContext = contextTag + (isError ? ANSIColor.colorize(message, ANSIColor.RED) : message);
-		if (isError)
-			logger.error(finalContext);
-		else
-			logger.info(finalContext);
+		print(message, isError, NO_ARGS);
 	}
 
 	/**
@@ -159,19 +152,10 @@ public class ContextLogger {
 	 */
 	@Deprecated
 	public void print(String message, boolean isError, Object... args) {
-		if (requiredLogLevel > (isError ? LogType.ERROR.level : LogType.BASIC.level))
-			return;
-		List<String> finalised = new ArrayList<>();
-		for (var arg : args) {
-			finalised.add(arg.toString());
-		}
-		String contextTag = createTag(isError ? LogType.ERROR : LogType.BASIC);
-		message = replaceAllOrdered(message, finalised);
-		String finalContext = contextTag + (isError ? ANSIColor.colorize(message, ANSIColor.RED) : message);
 		if (isError)
-			logger.error(finalContext);
+			submit(Form.TAGGED_RED, LogType.ERROR, null, message, args);
 		else
-			logger.info(finalContext);
+			submit(Form.TAGGED, LogType.BASIC, null, message, args);
 	}
 
 	/**
@@ -184,16 +168,7 @@ public class ContextLogger {
 	 */
 	@Deprecated
 	public void print(String message, Object... args) {
-		if (requiredLogLevel > LogType.BASIC.level)
-			return;
-		List<String> finalised = new ArrayList<>();
-		for (var arg : args) {
-			finalised.add(arg.toString());
-		}
-
-		String contextTag = createTag(LogType.BASIC);
-		String finalContext = contextTag + replaceAllOrdered(message, finalised);
-		logger.info(finalContext);
+		submit(Form.TAGGED, LogType.BASIC, null, message, args);
 	}
 
 	/**
@@ -204,16 +179,60 @@ public class ContextLogger {
 	 *            The message to log.
 	 */
 	public void debug(String message, Object... args) {
-		if (requiredLogLevel > LogType.DEBUG.level)
-			return;
-		List<String> finalised = new ArrayList<>();
-		for (var arg : args) {
-			finalised.add(arg.toString());
-		}
+		submit(Form.TAGGED, LogType.DEBUG, null, message, args);
+	}
 
-		String contextTag = createTag(LogType.DEBUG);
-		String finalContext = contextTag + replaceAllOrdered(message, finalised);
-		logger.info(finalContext);
+	/**
+	 * Fixed-arity and primitive variants of {@link #debug(String, Object...)} for
+	 * hot paths. The level is checked before anything else, so a disabled call
+	 * allocates nothing: no varargs array and no boxing. Enabled primitive calls
+	 * are formatted without boxing when the logger writes synchronously. The same
+	 * variants exist for {@code info}, {@code warn} and {@code severe}.
+	 * <p>
+	 * A leading {@code boolean} still selects the short tinted form of
+	 * {@link #debug(String, boolean, Object...)}, and for the other levels a
+	 * leading {@link LogPostType} still selects the effect form; both have
+	 * fixed-arity variants of their own so the calls are not captured as plain
+	 * arguments.
+	 * </p>
+	 */
+	public void debug(String message, Object arg) {
+		submitArgs(Form.TAGGED, LogType.DEBUG, message, arg);
+	}
+	public void debug(String message, Object arg0, Object arg1) {
+		submitArgs(Form.TAGGED, LogType.DEBUG, message, arg0, arg1);
+	}
+	public void debug(String message, Object arg0, Object arg1, Object arg2) {
+		submitArgs(Form.TAGGED, LogType.DEBUG, message, arg0, arg1, arg2);
+	}
+	public void debug(String message, Object arg0, Object arg1, Object arg2, Object arg3) {
+		submitArgs(Form.TAGGED, LogType.DEBUG, message, arg0, arg1, arg2, arg3);
+	}
+	public void debug(String message, int value) {
+		submitValue(Form.TAGGED, LogType.DEBUG, message, value);
+	}
+	public void debug(String message, long value) {
+		submitValue(Form.TAGGED, LogType.DEBUG, message, value);
+	}
+	public void debug(String message, float value) {
+		submitValue(Form.TAGGED, LogType.DEBUG, message, value);
+	}
+	public void debug(String message, double value) {
+		submitValue(Form.TAGGED, LogType.DEBUG, message, value);
+	}
+	public void debug(String message, char value) {
+		submitValue(Form.TAGGED, LogType.DEBUG, message, value);
+	}
+	public void debug(String message, boolean shouldAffectMessage, Object arg) {
+		submitArgs(shouldAffectMessage ? Form.SHORT_DEBUG_TINT : Form.SHORT_DEBUG, LogType.DEBUG, message, arg);
+	}
+	public void debug(String message, boolean shouldAffectMessage, Object arg0, Object arg1) {
+		submitArgs(shouldAffectMessage ? Form.SHORT_DEBUG_TINT : Form.SHORT_DEBUG, LogType.DEBUG, message, arg0,
+				arg1);
+	}
+	public void debug(String message, boolean shouldAffectMessage, Object arg0, Object arg1, Object arg2) {
+		submitArgs(shouldAffectMessage ? Form.SHORT_DEBUG_TINT : Form.SHORT_DEBUG, LogType.DEBUG, message, arg0,
+				arg1, arg2);
 	}
 
 	/**
@@ -227,18 +246,7 @@ public class ContextLogger {
 	 */
 	@Deprecated
 	public void print(String message, LogType type) {
-		if (requiredLogLevel > type.level)
-			return;
-		String contextTag = createTag(type);
-		String finalContext = contextTag + ANSIColor.colorize(type.color + "[" + message + "]");
-		if (type.equals(LogType.WARNING))
-			logger.warn(finalContext);
-		else if (type.equals(LogType.ERROR))
-			logger.error(finalContext);
-		else if (type.equals(LogType.AMBIENCE))
-			logger.debug(finalContext);
-		else
-			logger.info(finalContext);
+		submit(Form.TAGGED_TINT, type, null, message, NO_ARGS);
 	}
 
 	/**
@@ -251,14 +259,7 @@ public class ContextLogger {
 	 */
 	@Deprecated
 	public void print(String message, LogType type, Object... args) {
-		if (requiredLogLevel > type.level)
-			return;
-		List<String> finalised = new ArrayList<>();
-		for (var arg : args) {
-			finalised.add(arg.toString());
-		}
-		message = replaceAllOrdered(message, finalised);
-		print(message, type);
+		submit(Form.TAGGED_TINT, type, null, message, args);
 	}
 
 	/**
@@ -275,19 +276,7 @@ public class ContextLogger {
 	 */
 	@Deprecated
 	public void print(String message, LogType type, LogPostType effect) {
-		if (requiredLogLevel > type.level)
-			return;
-		String contextTag = createTag(type);
-		String finalContext = contextTag
-				+ ANSIColor.colorize(effect.effect + "[" + type.color + "[" + message + "]" + "]");
-		if (type.equals(LogType.WARNING))
-			logger.warn(finalContext);
-		else if (type.equals(LogType.ERROR))
-			logger.error(finalContext);
-		else if (type.equals(LogType.AMBIENCE))
-			logger.debug(finalContext);
-		else
-			logger.info(finalContext);
+		submit(Form.TAGGED_EFFECT, type, effect, message, NO_ARGS);
 	}
 
 	/**
@@ -300,14 +289,7 @@ public class ContextLogger {
 	 */
 	@Deprecated
 	public void print(String message, LogType type, LogPostType effect, Object... args) {
-		if (requiredLogLevel > type.level)
-			return;
-		List<String> finalised = new ArrayList<>();
-		for (var arg : args) {
-			finalised.add(arg.toString());
-		}
-		message = replaceAllOrdered(message, finalised);
-		print(message, type, effect);
+		submit(Form.TAGGED_EFFECT, type, effect, message, args);
 	}
 
 	/**
@@ -325,30 +307,27 @@ public class ContextLogger {
 	 */
 	@Deprecated
 	public void print(String message, LogType type, boolean shouldAffectMessage) {
-		if (requiredLogLevel > type.level)
-			return;
-		String contextTag = createTag(type);
-		String finalContext;
-		if (shouldAffectMessage) {
-			finalContext = contextTag + ANSIColor.colorize(type.color + "[" + message + "]");
-		} else {
-			finalContext = contextTag + message;
-		}
-		if (type.equals(LogType.WARNING))
-			logger.warn(finalContext);
-		else if (type.equals(LogType.ERROR))
-			logger.error(finalContext);
-		else if (type.equals(LogType.AMBIENCE))
-			logger.debug(finalContext);
-		else
-			logger.info(finalContext);
+		submit(shouldAffectMessage ? Form.TAGGED_TINT : Form.TAGGED, type, null, message, NO_ARGS);
 	}
 
 	private String createTag(LogType type) {
-		return "["
-				+ ANSIColor.colorize(
-						type.color + "[" + context + "-" + contextName + " / " + type.name().toLowerCase() + "]")
-				+ "/] ";
+		String tag = tags[type.ordinal()];
+		if (tag == null) {
+			tag = "[" + ANSIColor.colorize(
+					type.color + "[" + context + "-" + contextName + " / " + type.name().toLowerCase() + "]")
+					+ "/] ";
+			tags[type.ordinal()] = tag;
+		}
+		return tag;
+	}
+
+	private String createShortTag(LogType type) {
+		String tag = shortTags[type.ordinal()];
+		if (tag == null) {
+			tag = "[" + ANSIColor.colorize(type.color + "[" + context + "-" + contextName + "]") + "] ";
+			shortTags[type.ordinal()] = tag;
+		}
+		return tag;
 	}
 
 	/**
@@ -361,14 +340,7 @@ public class ContextLogger {
 	 */
 	@Deprecated
 	public void print(String message, LogType type, boolean shouldAffectMessage, Object... args) {
-		if (requiredLogLevel > type.level)
-			return;
-		List<String> finalised = new ArrayList<>();
-		for (var arg : args) {
-			finalised.add(arg.toString());
-		}
-		message = replaceAllOrdered(message, finalised);
-		print(message, type, shouldAffectMessage);
+		submit(shouldAffectMessage ? Form.TAGGED_TINT : Form.TAGGED, type, null, message, args);
 	}
 
 	/**
@@ -382,17 +354,7 @@ public class ContextLogger {
 	 *            otherwise, it is not.
 	 */
 	public void debug(String message, boolean shouldAffectMessage) {
-		if (requiredLogLevel > LogType.DEBUG.level)
-			return;
-		String contextTag = "[" + ANSIColor.colorize(LogType.DEBUG.color + "[" + context + "-" + contextName + "]")
-				+ "] ";
-		String finalContext;
-		if (shouldAffectMessage) {
-			finalContext = contextTag + ANSIColor.colorize(LogType.DEBUG.color + "[" + message + "]");
-		} else {
-			finalContext = contextTag + message;
-		}
-		logger.debug(finalContext);
+		debug(message, shouldAffectMessage, NO_ARGS);
 	}
 
 	/**
@@ -404,14 +366,7 @@ public class ContextLogger {
 	 *            The message to log.
 	 */
 	public void debug(String message, boolean shouldAffectMessage, Object... args) {
-		if (requiredLogLevel > LogType.DEBUG.level)
-			return;
-		List<String> finalised = new ArrayList<>();
-		for (var arg : args) {
-			finalised.add(arg.toString());
-		}
-		message = replaceAllOrdered(message, finalised);
-		debug(message, shouldAffectMessage);
+		submit(shouldAffectMessage ? Form.SHORT_DEBUG_TINT : Form.SHORT_DEBUG, LogType.DEBUG, null, message, args);
 	}
 
 	/**
@@ -431,24 +386,7 @@ public class ContextLogger {
 	 */
 	@Deprecated
 	public void print(String message, LogType type, LogPostType effect, boolean shouldAffectMessage) {
-		if (requiredLogLevel > type.level)
-			return;
-		String contextTag = "[" + ANSIColor.colorize(type.color + "[" + context + "-" + contextName + "]") + "] ";
-		String finalContext;
-		if (shouldAffectMessage) {
-			finalContext = contextTag
-					+ ANSIColor.colorize(effect.effect + "[" + type.color + "[" + message + "]" + "]");
-		} else {
-			finalContext = contextTag + ANSIColor.colorize(effect.effect + "[" + message + "]");
-		}
-		if (type.equals(LogType.WARNING))
-			logger.warn(finalContext);
-		else if (type.equals(LogType.ERROR))
-			logger.error(finalContext);
-		else if (type.equals(LogType.AMBIENCE))
-			logger.debug(finalContext);
-		else
-			logger.info(finalContext);
+		print(message, type, effect, shouldAffectMessage, NO_ARGS);
 	}
 
 	/**
@@ -461,19 +399,294 @@ public class ContextLogger {
 	 */
 	@Deprecated
 	public void print(String message, LogType type, LogPostType effect, boolean shouldAffectMessage, Object... args) {
-		if (requiredLogLevel > type.level)
+		submit(shouldAffectMessage ? Form.SHORT_EFFECT_TINT : Form.SHORT_EFFECT, type, effect, message, args);
+	}
+
+	/**
+	 * Whether a message of the given type would currently be written. The check is
+	 * a single volatile read of this context's level in {@link LogLevels}, so callers can use it to skip building expensive
+	 * arguments.
+	 *
+	 * @param type
+	 *            the log type to test
+	 * @return true if messages of {@code type} pass this logger's level
+	 */
+	public boolean isEnabled(LogType type) {
+		return levelCell.level <= type.level;
+	}
+
+	/**
+	 * @return true if debug messages pass this logger's level
+	 */
+	public boolean isDebugEnabled() {
+		return isEnabled(LogType.DEBUG);
+	}
+
+	/**
+	 * Logs a lazily built message. The supplier is only called, on the calling
+	 * thread, if {@code type} passes this logger's level, so string building is
+	 * skipped entirely for disabled levels. Debug messages are written like
+	 * {@link #debug(String)}, everything else like {@link #print(String, LogType)}.
+	 * <p>
+	 * Kotlin callers should prefer the inline {@code debug { }}, {@code info { }},
+	 * ... extensions, which avoid the supplier object as well.
+	 * </p>
+	 *
+	 * @param type
+	 *            the log type
+	 * @param message
+	 *            builds the message
+	 */
+	public void log(LogType type, Supplier<String> message) {
+		if (levelCell.level > type.level)
 			return;
-		List<String> finalised = new ArrayList<>();
-		for (var arg : args) {
-			finalised.add(arg.toString());
+		logBuilt(type, message.get());
+	}
+
+	/**
+	 * Logs a message built at runtime, such as the result of a supplier, laid out
+	 * like {@link #log(LogType, Supplier)}. Unlike literal templates its markup is
+	 * translated without the shared template cache, so one-off messages do not
+	 * evict the templates cached there. The message is not scanned for {}
+	 * placeholders.
+	 *
+	 * @param type
+	 *            the log type
+	 * @param message
+	 *            the finished message
+	 */
+	public void logBuilt(LogType type, String message) {
+		if (levelCell.level > type.level)
+			return;
+		if (type == LogType.DEBUG)
+			emit(Form.TAGGED, type, null, message, NO_ARGS);
+		else
+			emit(Form.TAGGED_TINT_BUILT, type, null, message, NO_ARGS);
+	}
+
+	// Level gate on the calling thread: filtered calls never reach emit(), so they
+	// cost neither a queue slot nor any formatting.
+	private void submit(Form form, LogType type, LogPostType effect, String message, Object[] args) {
+		if (levelCell.level > type.level)
+			return;
+		emit(form, type, effect, message, args);
+	}
+
+	// Fixed-arity gates: the argument array is only created once the level check
+	// passed.
+	private void submitArgs(Form form, LogType type, String message, Object a0) {
+		if (levelCell.level <= type.level)
+			emit(form, type, null, message, new Object[]{a0});
+	}
+
+	private void submitArgs(Form form, LogType type, String message, Object a0, Object a1) {
+		if (levelCell.level <= type.level)
+			emit(form, type, null, message, new Object[]{a0, a1});
+	}
+
+	private void submitArgs(Form form, LogType type, String message, Object a0, Object a1, Object a2) {
+		if (levelCell.level <= type.level)
+			emit(form, type, null, message, new Object[]{a0, a1, a2});
+	}
+
+	private void submitArgs(Form form, LogType type, String message, Object a0, Object a1, Object a2, Object a3) {
+		if (levelCell.level <= type.level)
+			emit(form, type, null, message, new Object[]{a0, a1, a2, a3});
+	}
+
+	private void submitEffect(LogType type, LogPostType effect, String message, Object a0) {
+		if (levelCell.level <= type.level)
+			emit(Form.TAGGED_EFFECT, type, effect, message, new Object[]{a0});
+	}
+
+	private void submitEffect(LogType type, LogPostType effect, String message, Object a0, Object a1) {
+		if (levelCell.level <= type.level)
+			emit(Form.TAGGED_EFFECT, type, effect, message, new Object[]{a0, a1});
+	}
+
+	private void submitEffect(LogType type, LogPostType effect, String message, Object a0, Object a1, Object a2) {
+		if (levelCell.level <= type.level)
+			emit(Form.TAGGED_EFFECT, type, effect, message, new Object[]{a0, a1, a2});
+	}
+
+	private void submitValue(Form form, LogType type, String message, long value) {
+		if (levelCell.level <= type.level)
+			emit(form, type, message, value);
+	}
+
+	private void submitValue(Form form, LogType type, String message, double value) {
+		if (levelCell.level <= type.level)
+			emit(form, type, message, value);
+	}
+
+	// floats are boxed rather than widened, so they print as written (0.1, not
+	// 0.10000000149011612)
+	private void submitValue(Form form, LogType type, String message, float value) {
+		if (levelCell.level <= type.level)
+			emit(form, type, null, message, new Object[]{value});
+	}
+
+	private void submitValue(Form form, LogType type, String message, char value) {
+		if (levelCell.level <= type.level)
+			emit(form, type, null, message, new Object[]{value});
+	}
+
+	/**
+	 * Hands a log call to the output pipeline. Every public overload that passes
+	 * the level check ends up here with its {@link Form} resolved, so subclasses
+	 * (see {@link AsyncContextLogger}) only need to override this one method to
+	 * change how and where lines are produced. The default writes synchronously.
+	 *
+	 * @param form
+	 *            how the line should be laid out
+	 * @param type
+	 *            the log type (level, color and target stream)
+	 * @param effect
+	 *            the post effect, or {@code null} for forms that do not use one
+	 * @param message
+	 *            the raw message template
+	 * @param args
+	 *            the {} placeholder arguments, never {@code null}
+	 */
+	protected void emit(Form form, LogType type, LogPostType effect, String message, Object[] args) {
+		write(form, type, effect, message, args, args.length);
+	}
+
+	/**
+	 * Primitive variant of {@link #emit(Form, LogType, LogPostType, String, Object[])}
+	 * for a single {@code long} argument. The default writes synchronously without
+	 * boxing the value; loggers that capture calls for later box it and delegate.
+	 */
+	protected void emit(Form form, LogType type, String message, long value) {
+		writeLine(form, type, render(form, type, message, value));
+	}
+
+	/**
+	 * Primitive variant of {@link #emit(Form, LogType, LogPostType, String, Object[])}
+	 * for a single {@code double} argument, see {@link #emit(Form, LogType, String, long)}.
+	 */
+	protected void emit(Form form, LogType type, String message, double value) {
+		writeLine(form, type, render(form, type, message, value));
+	}
+
+	/**
+	 * Formats and writes a line to the platform logger on the current thread. Only
+	 * the first {@code argCount} entries of {@code args} are used, which lets
+	 * callers pass reusable argument storage. The template is parsed once and
+	 * cached, see {@link MessageTemplate}.
+	 */
+	protected final void write(Form form, LogType type, LogPostType effect, String message, Object[] args,
+			int argCount) {
+		writeLine(form, type, render(form, type, effect, message, args, argCount));
+	}
+
+	private void writeLine(Form form, LogType type, String line) {
+		if (line == null)
+			return;
+		switch (levelOf(form, type)) {
+			case DEBUG -> logger.debug(line);
+			case WARN -> logger.warn(line);
+			case ERROR -> logger.error(line);
+			default -> logger.info(line);
+		}
+	}
+
+	/**
+	 * Same as {@link #write} but appends the line to {@code batch} instead of
+	 * writing it, so it can be handed to {@link PlatformLogger#logBatch} together
+	 * with others.
+	 */
+	final void writeTo(PlatformLogger.Batch batch, Form form, LogType type, LogPostType effect, String message,
+			Object[] args, int argCount) {
+		String line = render(form, type, effect, message, args, argCount);
+		if (line != null)
+			batch.add(levelOf(form, type), line);
+	}
+
+	final String render(Form form, LogType type, LogPostType effect, String message, Object[] args, int argCount) {
+		if (levelCell.level > type.level)
+			return null;
+		String template = template(form, type, effect, message);
+		StringBuilder sb = LineBuffer.acquire();
+		try {
+			sb.append(tag(form, type));
+			if (argCount == 0)
+				sb.append(template);
+			else
+				MessageTemplate.of(template).appendTo(sb, args, argCount);
+			return sb.toString();
+		} finally {
+			LineBuffer.release(sb);
+		}
+	}
+
+	private String render(Form form, LogType type, String message, long value) {
+		if (levelCell.level > type.level)
+			return null;
+		StringBuilder sb = LineBuffer.acquire();
+		try {
+			MessageTemplate.of(template(form, type, null, message)).appendTo(sb.append(tag(form, type)), value);
+			return sb.toString();
+		} finally {
+			LineBuffer.release(sb);
+		}
+	}
+
+	private String render(Form form, LogType type, String message, double value) {
+		if (levelCell.level > type.level)
+			return null;
+		StringBuilder sb = LineBuffer.acquire();
+		try {
+			MessageTemplate.of(template(form, type, null, message)).appendTo(sb.append(tag(form, type)), value);
+			return sb.toString();
+		} finally {
+			LineBuffer.release(sb);
 		}
-		message = replaceAllOrdered(message, finalised);
-		print(message, type, effect, shouldAffectMessage);
 	}
 
+	// Markup is applied to the template before the arguments go in, so a template
+	// is colorized once (see ANSIColor#colorize) and brackets inside argument
+	// values are never mistaken for markup.
+	private static String template(Form form, LogType type, LogPostType effect, String message) {
+		return switch (form) {
+			case TAGGED, SHORT_DEBUG -> message;
+			case TAGGED_RED -> ANSIColor.colorize(message, ANSIColor.RED);
+			case TAGGED_TINT, SHORT_DEBUG_TINT -> ANSIColor.colorize(type.color + "[" + message + "]");
+			case TAGGED_TINT_BUILT -> ANSIColor.colorizeUncached(type.color + "[" + message + "]");
+			case SHORT_EFFECT -> ANSIColor.colorize(effect.effect + "[" + message + "]");
+			case TAGGED_EFFECT, SHORT_EFFECT_TINT ->
+				ANSIColor.colorize(effect.effect + "[" + type.color + "[" + message + "]" + "]");
+		};
+	}
+
+	private String tag(Form form, LogType type) {
+		return switch (form) {
+			case TAGGED, TAGGED_RED, TAGGED_TINT, TAGGED_TINT_BUILT, TAGGED_EFFECT -> createTag(type);
+			case SHORT_DEBUG, SHORT_DEBUG_TINT, SHORT_EFFECT, SHORT_EFFECT_TINT -> createShortTag(type);
+		};
+	}
+
+	static PlatformLogger.Level levelOf(Form form, LogType type) {
+		if (form == Form.SHORT_DEBUG || form == Form.SHORT_DEBUG_TINT)
+			return PlatformLogger.Level.DEBUG;
+		if (type.equals(LogType.WARNING))
+			return PlatformLogger.Level.WARN;
+		else if (type.equals(LogType.ERROR))
+			return PlatformLogger.Level.ERROR;
+		else if (type.equals(LogType.AMBIENCE))
+			return PlatformLogger.Level.DEBUG;
+		else
+			return PlatformLogger.Level.INFO;
+	}
+
+	/**
+	 * Raises the level of this logger's context to {@code level} if it is
+	 * currently lower. The level is shared by every logger with the same context
+	 * type and name; use {@link LogLevels} to lower or reset it.
+	 */
 	public void setLevel(LogType level) {
-		if (level.level > this.requiredLogLevel) {
-			this.requiredLogLevel = level.level;
+		if (level.level > levelCell.level) {
+			LogLevels.setLevel(context, contextName, level);
 		}
 	}
 
@@ -495,6 +708,42 @@ public class ContextLogger {
 	public void info(String message) {
 		print(message, LogType.BASIC);
 	}
+	public void info(String message, Object arg) {
+		submitArgs(Form.TAGGED_TINT, LogType.BASIC, message, arg);
+	}
+	public void info(String message, Object arg0, Object arg1) {
+		submitArgs(Form.TAGGED_TINT, LogType.BASIC, message, arg0, arg1);
+	}
+	public void info(String message, Object arg0, Object arg1, Object arg2) {
+		submitArgs(Form.TAGGED_TINT, LogType.BASIC, message, arg0, arg1, arg2);
+	}
+	public void info(String message, Object arg0, Object arg1, Object arg2, Object arg3) {
+		submitArgs(Form.TAGGED_TINT, LogType.BASIC, message, arg0, arg1, arg2, arg3);
+	}
+	public void info(String message, int value) {
+		submitValue(Form.TAGGED_TINT, LogType.BASIC, message, value);
+	}
+	public void info(String message, long value) {
+		submitValue(Form.TAGGED_TINT, LogType.BASIC, message, value);
+	}
+	public void info(String message, float value) {
+		submitValue(Form.TAGGED_TINT, LogType.BASIC, message, value);
+	}
+	public void info(String message, double value) {
+		submitValue(Form.TAGGED_TINT, LogType.BASIC, message, value);
+	}
+	public void info(String message, char value) {
+		submitValue(Form.TAGGED_TINT, LogType.BASIC, message, value);
+	}
+	public void info(String message, LogPostType effect, Object arg) {
+		submitEffect(LogType.BASIC, effect, message, arg);
+	}
+	public void info(String message, LogPostType effect, Object arg0, Object arg1) {
+		submitEffect(LogType.BASIC, effect, message, arg0, arg1);
+	}
+	public void info(String message, LogPostType effect, Object arg0, Object arg1, Object arg2) {
+		submitEffect(LogType.BASIC, effect, message, arg0, arg1, arg2);
+	}
 
 	public void warnAffect(String message, Object... args) {
 		print(message, LogType.WARNING, true, args);
@@ -514,6 +763,42 @@ public class ContextLogger {
 	public void warn(String message) {
 		print(message, LogType.WARNING);
 	}
+	public void warn(String message, Object arg) {
+		submitArgs(Form.TAGGED_TINT, LogType.WARNING, message, arg);
+	}
+	public void warn(String message, Object arg0, Object arg1) {
+		submitArgs(Form.TAGGED_TINT, LogType.WARNING, message, arg0, arg1);
+	}
+	public void warn(String message, Object arg0, Object arg1, Object arg2) {
+		submitArgs(Form.TAGGED_TINT, LogType.WARNING, message, arg0, arg1, arg2);
+	}
+	public void warn(String message, Object arg0, Object arg1, Object arg2, Object arg3) {
+		submitArgs(Form.TAGGED_TINT, LogType.WARNING, message, arg0, arg1, arg2, arg3);
+	}
+	public void warn(String message, int value) {
+		submitValue(Form.TAGGED_TINT, LogType.WARNING, message, value);
+	}
+	public void warn(String message, long value) {
+		submitValue(Form.TAGGED_TINT, LogType.WARNING, message, value);
+	}
+	public void warn(String message, float value) {
+		submitValue(Form.TAGGED_TINT, LogType.WARNING, message, value);
+	}
+	public void warn(String message, double value) {
+		submitValue(Form.TAGGED_TINT, LogType.WARNING, message, value);
+	}
+	public void warn(String message, char value) {
+		submitValue(Form.TAGGED_TINT, LogType.WARNING, message, value);
+	}
+	public void warn(String message, LogPostType effect, Object arg) {
+		submitEffect(LogType.WARNING, effect, message, arg);
+	}
+	public void warn(String message, LogPostType effect, Object arg0, Object arg1) {
+		submitEffect(LogType.WARNING, effect, message, arg0, arg1);
+	}
+	public void warn(String message, LogPostType effect, Object arg0, Object arg1, Object arg2) {
+		submitEffect(LogType.WARNING, effect, message, arg0, arg1, arg2);
+	}
 
 	public void severeAffect(String message, Object... args) {
 		print(message, LogType.ERROR, true, args);
@@ -533,6 +818,42 @@ public class ContextLogger {
 	public void severe(String message) {
 		print(message, LogType.ERROR);
 	}
+	public void severe(String message, Object arg) {
+		submitArgs(Form.TAGGED_TINT, LogType.ERROR, message, arg);
+	}
+	public void severe(String message, Object arg0, Object arg1) {
+		submitArgs(Form.TAGGED_TINT, LogType.ERROR, message, arg0, arg1);
+	}
+	public void severe(String message, Object arg0, Object arg1, Object arg2) {
+		submitArgs(Form.TAGGED_TINT, LogType.ERROR, message, arg0, arg1, arg2);
+	}
+	public void severe(String message, Object arg0, Object arg1, Object arg2, Object arg3) {
+		submitArgs(Form.TAGGED_TINT, LogType.ERROR, message, arg0, arg1, arg2, arg3);
+	}
+	public void severe(String message, int value) {
+		submitValue(Form.TAGGED_TINT, LogType.ERROR, message, value);
+	}
+	public void severe(String message, long value) {
+		submitValue(Form.TAGGED_TINT, LogType.ERROR, message, value);
+	}
+	public void severe(String message, float value) {
+		submitValue(Form.TAGGED_TINT, LogType.ERROR, message, value);
+	}
+	public void severe(String message, double value) {
+		submitValue(Form.TAGGED_TINT, LogType.ERROR, message, value);
+	}
+	public void severe(String message, char value) {
+		submitValue(Form.TAGGED_TINT, LogType.ERROR, message, value);
+	}
+	public void severe(String message, LogPostType effect, Object arg) {
+		submitEffect(LogType.ERROR, effect, message, arg);
+	}
+	public void severe(String message, LogPostType effect, Object arg0, Object arg1) {
+		submitEffect(LogType.ERROR, effect, message, arg0, arg1);
+	}
+	public void severe(String message, LogPostType effect, Object arg0, Object arg1, Object arg2) {
+		submitEffect(LogType.ERROR, effect, message, arg0, arg1, arg2);
+	}
 
 	public void pendingAffect(String message, Object... args) {
 		print(message, LogType.PENDING, true, args);
@@ -591,6 +912,63 @@ public class ContextLogger {
 		print(message, LogType.AMBIENCE);
 	}
 
+	/**
+	 * A per-thread builder that lines are assembled in, reused across calls. A log
+	 * call made while a line is being built (from an argument's toString) gets a
+	 * fresh builder instead.
+	 */
+	private static final class LineBuffer {
+		/** Builders that grew past this are shrunk again after use. */
+		private static final int MAX_RETAINED = 8_192;
+		private static final ThreadLocal<LineBuffer> LOCAL = ThreadLocal.withInitial(LineBuffer::new);
+
+		private final StringBuilder sb = new StringBuilder(256);
+		private boolean busy;
+
+		static StringBuilder acquire() {
+			LineBuffer buffer = LOCAL.get();
+			if (buffer.busy)
+				return new StringBuilder(128);
+			buffer.busy = true;
+			return buffer.sb;
+		}
+
+		static void release(StringBuilder sb) {
+			LineBuffer buffer = LOCAL.get();
+			if (buffer.sb != sb)
+				return;
+			sb.setLength(0);
+			if (sb.capacity() > MAX_RETAINED)
+				sb.trimToSize();
+			buffer.busy = false;
+		}
+	}
+
+	/**
+	 * Layout of a rendered log line. Each public overload resolves to exactly one
+	 * of these, which is what allows a call to be captured now and rendered later.
+	 */
+	protected enum Form {
+		/** Full context tag followed by the plain message. */
+		TAGGED,
+		/** Full context tag followed by the message in red. */
+		TAGGED_RED,
+		/** Full context tag followed by the message in the log type's color. */
+		TAGGED_TINT,
+		/** Like {@link #TAGGED_TINT}, for a message built at runtime rather than a literal template. */
+		TAGGED_TINT_BUILT,
+		/** Full context tag followed by the message in the post effect and color. */
+		TAGGED_EFFECT,
+		/** Short context tag and plain message, always sent to the debug stream. */
+		SHORT_DEBUG,
+		/** Short context tag and tinted message, always sent to the debug stream. */
+		SHORT_DEBUG_TINT,
+		/** Short context tag followed by the message in the post effect. */
+		SHORT_EFFECT,
+		/** Short context tag followed by the message in the post effect and color. */
+		SHORT_EFFECT_TINT
+	}
+
 	/**
 	 * Enumeration defining different logging contexts.
 	 */
@@ -678,7 +1056,7 @@ public class ContextLogger {
 		 * The ANSI color code for the log type.
 		 */
 		public final String color;
-		private final int level;
+		final int level;
 
 		LogType(String color, int level) {
 			this.level = level;
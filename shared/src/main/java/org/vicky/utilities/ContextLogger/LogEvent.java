@@ -0,0 +1,64 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities.ContextLogger;
+
+import org.vicky.utilities.ContextLogger.ContextLogger.Form;
+import org.vicky.utilities.ContextLogger.ContextLogger.LogPostType;
+import org.vicky.utilities.ContextLogger.ContextLogger.LogType;
+
+/**
+ * A reusable log-event slot living inside a {@link LogRingBuffer}, created the
+ * first time its position is claimed. Producers fill a claimed slot in place
+ * and the consumer clears it after rendering, so once the ring has warmed up a
+ * log call allocates neither an event nor a closure.
+ */
+final class LogEvent {
+	/**
+	 * Arguments up to this count are copied into the slot's own array, so the
+	 * caller's array is not retained and nothing is allocated; longer lists are
+	 * cloned.
+	 */
+	static final int INLINE_ARGS = 8;
+
+	final Object[] inlineArgs = new Object[INLINE_ARGS];
+
+	ContextLogger source;
+	Form form;
+	LogType type;
+	LogPostType effect;
+	String template;
+	Object[] spilledArgs;
+	int argCount;
+	long timestamp;
+
+	void set(ContextLogger source, Form form, LogType type, LogPostType effect, String template, Object[] args) {
+		this.source = source;
+		this.form = form;
+		this.type = type;
+		this.effect = effect;
+		this.template = template;
+		this.timestamp = System.currentTimeMillis();
+		int count = args.length;
+		if (count <= INLINE_ARGS) {
+			System.arraycopy(args, 0, inlineArgs, 0, count);
+		} else {
+			// rare: too many arguments for the slot, keep a private copy
+			spilledArgs = args.clone();
+		}
+		this.argCount = count;
+	}
+
+	Object[] args() {
+		return spilledArgs != null ? spilledArgs : inlineArgs;
+	}
+
+	void clear() {
+		for (int i = 0, n = Math.min(argCount, INLINE_ARGS); i < n; i++) {
+			inlineArgs[i] = null;
+		}
+		source = null;
+		template = null;
+		spilledArgs = null;
+		effect = null;
+		argCount = 0;
+	}
+}
@@ -0,0 +1,466 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities.ContextLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import org.vicky.platform.PlatformLogger;
+import org.vicky.utilities.ContextLogger.ContextLogger.LogType;
+
+/**
+ * A JSON-lines log file for the async logging pipeline. Attach it to one or
+ * more loggers with {@link AsyncContextLogger#setFileSink(LogFileSink, boolean)};
+ * the dispatcher's workers then write every line of those loggers here, one
+ * JSON object per line:
+ *
+ * <pre>
+ * {"ts":1760000000000,"level":"DEBUG","type":"debug","context":"SYSTEM","name":"ENTITY-TASK-MANAGER","msg":"..."}
+ * </pre>
+ *
+ * Lines are encoded into a direct buffer and written to a {@link FileChannel}
+ * when it fills up or the worker finishes a batch. The active file is rotated
+ * when it reaches the size limit or its age limit; rotated files are gzipped
+ * and the oldest archives removed on a shared background thread, so workers
+ * never wait on compression.
+ *
+ * <pre>
+ * LogFileSink sink = LogFileSink.builder(dataFolder.toPath().resolve("logs"), "debug").maxFileSize(32 &lt;&lt; 20)
+ * 		.rotateEvery(Duration.ofHours(6)).build();
+ * logger.setFileSink(sink, false); // file only, keep the console quiet
+ * </pre>
+ */
+public final class LogFileSink implements Closeable {
+	private static final String EXTENSION = ".jsonl";
+	private static final DateTimeFormatter ARCHIVE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+	/** How long to wait before trying again after a rotation failed. */
+	private static final long ROTATE_RETRY_MILLIS = 60_000;
+	private static final ExecutorService ARCHIVER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "LogFileSink-archiver");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Path directory;
+	private final String baseName;
+	private final Path activeFile;
+	private final long maxFileSize;
+	private final long rotateMillis;
+	private final boolean compress;
+	private final int maxArchives;
+	// baseName-STAMP[-N].jsonl[.gz], and nothing another sink in the directory could own
+	private final Pattern archiveName;
+
+	// guarded by this
+	private final ByteBuffer buffer;
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+	private final StringBuilder line = new StringBuilder(256);
+	private FileChannel channel;
+	private long fileSize;
+	// timestamp of the oldest record in the active file, -1 until one is written
+	private long fileStartedAt;
+	private long rotateRetryAt;
+	private boolean closed;
+	private boolean failing;
+
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong rotations = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+
+	private LogFileSink(Builder builder) throws IOException {
+		this.directory = builder.directory;
+		this.baseName = builder.baseName;
+		this.activeFile = directory.resolve(baseName + EXTENSION);
+		this.maxFileSize = builder.maxFileSize;
+		this.rotateMillis = builder.rotateEvery.toMillis();
+		this.compress = builder.compress;
+		this.maxArchives = builder.maxArchives;
+		this.archiveName = Pattern.compile(Pattern.quote(baseName) + "-(\\d{8}-\\d{6})(?:-(\\d+))?"
+				+ Pattern.quote(EXTENSION) + "(?:\\.gz)?");
+		this.buffer = ByteBuffer.allocateDirect(builder.bufferSize);
+		Files.createDirectories(directory);
+		open();
+	}
+
+	/**
+	 * @param directory
+	 *            where the active file and the archives are kept
+	 * @param baseName
+	 *            file name without extension; the active file is
+	 *            {@code baseName.jsonl}
+	 */
+	public static Builder builder(Path directory, String baseName) {
+		return new Builder(directory, baseName);
+	}
+
+	/**
+	 * Appends one record. Called by dispatcher workers; the message is the raw
+	 * template with its first {@code argCount} arguments, which are substituted
+	 * while escaping so no intermediate string is built.
+	 */
+	synchronized void append(long timestamp, PlatformLogger.Level level, LogType type, ContextLogger source,
+			String template, Object[] args, int argCount) {
+		if (closed)
+			return;
+		boolean formatted = false;
+		try {
+			// the whole line is built before the buffer is touched, so a record that
+			// cannot be formatted never costs the records already waiting in it
+			StringBuilder sb = line;
+			sb.setLength(0);
+			sb.append("{\"ts\":").append(timestamp).append(",\"level\":\"").append(level.name())
+					.append("\",\"type\":\"").append(type.name().toLowerCase()).append("\",\"context\":\"")
+					.append(source.context.name()).append("\",\"name\":");
+			appendString(sb, source.contextName);
+			sb.append(",\"msg\":\"");
+			if (argCount == 0) {
+				escape(sb, template);
+			} else {
+				MessageTemplate compiled = MessageTemplate.of(template);
+				int placeholders = compiled.placeholders();
+				escape(sb, compiled.segment(0));
+				for (int i = 0; i < placeholders; i++) {
+					escape(sb, i < argCount ? argument(args[i]) : "{}");
+					escape(sb, compiled.segment(i + 1));
+				}
+			}
+			sb.append("\"}\n");
+			formatted = true;
+
+			ensureOpen();
+			if (fileStartedAt < 0)
+				fileStartedAt = timestamp;
+			if ((fileSize >= maxFileSize || timestamp - fileStartedAt >= rotateMillis) && timestamp >= rotateRetryAt)
+				rotate();
+			encode(sb);
+			failing = false;
+		} catch (IOException | RuntimeException e) {
+			fail(e, formatted);
+		} finally {
+			if (line.capacity() > 65_536) {
+				line.setLength(0);
+				line.trimToSize();
+			}
+		}
+	}
+
+	/**
+	 * Writes buffered records to the file. Workers call this after each batch;
+	 * it does not force the data to disk.
+	 */
+	public synchronized void flush() {
+		if (closed)
+			return;
+		try {
+			ensureOpen();
+			drainBuffer();
+		} catch (IOException e) {
+			fail(e, true);
+		}
+	}
+
+	/**
+	 * Flushes and closes the active file. Loggers still attached to this sink
+	 * write nothing to it afterwards.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed)
+			return;
+		try {
+			drainBuffer();
+		} finally {
+			closed = true;
+			channel.close();
+		}
+	}
+
+	/**
+	 * @return bytes written to log files so far
+	 */
+	public long getWrittenBytes() {
+		return written.get();
+	}
+
+	/**
+	 * @return how many times the active file was rotated
+	 */
+	public long getRotationCount() {
+		return rotations.get();
+	}
+
+	/**
+	 * @return records or flushes that failed with an I/O error
+	 */
+	public long getFailureCount() {
+		return failures.get();
+	}
+
+	public Path getActiveFile() {
+		return activeFile;
+	}
+
+	private void open() throws IOException {
+		channel = FileChannel.open(activeFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		fileSize = channel.size();
+		// reopening a file that already holds records (a restart, a failed
+		// rotation) keeps its age; an empty one starts with its first record
+		fileStartedAt = fileSize == 0
+				? -1
+				: Files.readAttributes(activeFile, BasicFileAttributes.class).creationTime().toMillis();
+	}
+
+	// Reopens the active file after a failed rotation or open left the channel closed
+	private void ensureOpen() throws IOException {
+		if (!channel.isOpen())
+			open();
+	}
+
+	private void rotate() throws IOException {
+		drainBuffer();
+		channel.close();
+		Path archived;
+		boolean moved = false;
+		try {
+			String stamp = LocalDateTime.now().format(ARCHIVE_STAMP);
+			archived = directory.resolve(baseName + "-" + stamp + EXTENSION);
+			for (int i = 1; Files.exists(archived) || Files.exists(gzipped(archived)); i++) {
+				archived = directory.resolve(baseName + "-" + stamp + "-" + i + EXTENSION);
+			}
+			Files.move(activeFile, archived);
+			moved = true;
+		} finally {
+			// keep writing to the active file, rotated or not; if this fails too,
+			// the next record tries again
+			if (!moved)
+				rotateRetryAt = System.currentTimeMillis() + ROTATE_RETRY_MILLIS;
+			open();
+		}
+		rotations.incrementAndGet();
+		Path toArchive = archived;
+		ARCHIVER.execute(() -> archive(toArchive));
+	}
+
+	// Encodes the finished line into the buffer, writing the buffer out whenever
+	// it fills up, so lines longer than the buffer still go through.
+	private void encode(StringBuilder sb) throws IOException {
+		CharBuffer chars = CharBuffer.wrap(sb);
+		encoder.reset();
+		while (true) {
+			CoderResult result = encoder.encode(chars, buffer, true);
+			if (result.isOverflow()) {
+				drainBuffer();
+				continue;
+			}
+			if (result.isError())
+				result.throwException();
+			break;
+		}
+		while (encoder.flush(buffer).isOverflow()) {
+			drainBuffer();
+		}
+	}
+
+	private void drainBuffer() throws IOException {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				int n = channel.write(buffer);
+				fileSize += n;
+				written.addAndGet(n);
+			}
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	// Reports the first failure of a run of failures instead of every record.
+	// Only a failed encode or write leaves the buffer in an unknown state; a
+	// record that could not be formatted never reached it.
+	private void fail(Exception e, boolean discardBuffer) {
+		failures.incrementAndGet();
+		if (!failing) {
+			failing = true;
+			System.err.println("LogFileSink " + activeFile + " failed: " + e);
+		}
+		if (discardBuffer)
+			buffer.clear();
+	}
+
+	// An argument whose toString() throws is logged as a placeholder rather than
+	// dropping the whole record
+	private static String argument(Object arg) {
+		try {
+			return String.valueOf(arg);
+		} catch (RuntimeException e) {
+			return "<toString() failed: " + e.getClass().getName() + ">";
+		}
+	}
+
+	private void archive(Path file) {
+		try {
+			if (compress) {
+				Path target = gzipped(file);
+				try (InputStream in = Files.newInputStream(file);
+						OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), 64 * 1024)) {
+					in.transferTo(out);
+				}
+				Files.delete(file);
+			}
+			pruneArchives();
+		} catch (IOException e) {
+			System.err.println("LogFileSink could not archive " + file + ": " + e);
+		}
+	}
+
+	private void pruneArchives() throws IOException {
+		if (maxArchives < 0)
+			return;
+		List<Archive> archives = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, baseName + "-*")) {
+			for (Path path : stream) {
+				Matcher matcher = archiveName.matcher(path.getFileName().toString());
+				if (matcher.matches())
+					archives.add(new Archive(path, matcher.group(1),
+							matcher.group(2) == null ? 0 : Integer.parseInt(matcher.group(2))));
+			}
+		}
+		if (archives.size() <= maxArchives)
+			return;
+		// oldest first: by rotation time, then by the suffix added when a stamp was taken
+		archives.sort(Comparator.comparing(Archive::stamp).thenComparingInt(Archive::index));
+		for (int i = 0; i < archives.size() - maxArchives; i++) {
+			Files.deleteIfExists(archives.get(i).path());
+		}
+	}
+
+	private record Archive(Path path, String stamp, int index) {
+	}
+
+	private static Path gzipped(Path file) {
+		return file.resolveSibling(file.getFileName() + ".gz");
+	}
+
+	private static void appendString(StringBuilder sb, String value) {
+		sb.append('"');
+		escape(sb, value);
+		sb.append('"');
+	}
+
+	// JSON string escaping. ANSI color sequences are dropped rather than escaped,
+	// since messages that were colorized by the caller are common.
+	private static void escape(StringBuilder sb, String value) {
+		for (int i = 0, n = value.length(); i < n; i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"' -> sb.append("\\\"");
+				case '\\' -> sb.append("\\\\");
+				case '\n' -> sb.append("\\n");
+				case '\r' -> sb.append("\\r");
+				case '\t' -> sb.append("\\t");
+				case '\u001B' -> {
+					if (i + 1 < n && value.charAt(i + 1) == '[') {
+						int end = i + 2;
+						while (end < n && !Character.isLetter(value.charAt(end)))
+							end++;
+						i = end;
+					}
+				}
+				default -> {
+					if (c < 0x20) {
+						sb.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+					} else {
+						sb.append(c);
+					}
+				}
+			}
+		}
+	}
+
+	public static final class Builder {
+		private final Path directory;
+		private final String baseName;
+		private long maxFileSize = 64L << 20;
+		private Duration rotateEvery = Duration.ofDays(1);
+		private boolean compress = true;
+		private int maxArchives = 20;
+		private int bufferSize = 64 * 1024;
+
+		private Builder(Path directory, String baseName) {
+			this.directory = directory;
+			this.baseName = baseName;
+		}
+
+		/** Rotate once the active file reaches this many bytes. Default 64 MiB. */
+		public Builder maxFileSize(long bytes) {
+			if (bytes <= 0)
+				throw new IllegalArgumentException("File size must be positive, got " + bytes);
+			this.maxFileSize = bytes;
+			return this;
+		}
+
+		/**
+		 * Rotate once the oldest record in the active file is this old, counted
+		 * from the file's creation when it is reopened. Default one day.
+		 */
+		public Builder rotateEvery(Duration interval) {
+			if (interval.isZero() || interval.isNegative())
+				throw new IllegalArgumentException("Rotation interval must be positive, got " + interval);
+			this.rotateEvery = interval;
+			return this;
+		}
+
+		/** Gzip rotated files. Default true. */
+		public Builder compressRotated(boolean compress) {
+			this.compress = compress;
+			return this;
+		}
+
+		/** Rotated files to keep, oldest are deleted first; negative keeps all. Default 20. */
+		public Builder maxArchives(int count) {
+			this.maxArchives = count;
+			return this;
+		}
+
+		/** Size of the write buffer in bytes. Default 64 KiB. */
+		public Builder bufferSize(int bytes) {
+			this.bufferSize = Math.max(4 * 1024, bytes);
+			return this;
+		}
+
+		/**
+		 * Opens (or appends to) the active file.
+		 *
+		 * @throws IOException
+		 *             if the directory or the file cannot be created
+		 */
+		public LogFileSink build() throws IOException {
+			return new LogFileSink(this);
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities.ContextLogger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.vicky.platform.PlatformPlugin;
+import org.vicky.utilities.ContextLogger.ContextLogger.ContextType;
+import org.vicky.utilities.ContextLogger.ContextLogger.LogType;
+
+/**
+ * Central, runtime-adjustable log levels for {@link ContextLogger}s.
+ * <p>
+ * A level is resolved from the most specific setting that exists: an override
+ * for one context ({@link ContextType} and name), then an override for the
+ * whole context type, then the default level, which falls back to
+ * {@link PlatformPlugin#logLevel()}. Every logger with the same type and name
+ * shares one {@link Cell}; changing a level recomputes the affected cells
+ * once, so checking a level on the logging path is a single volatile read
+ * and unaffected contexts pay nothing for the change.
+ * </p>
+ *
+ * <pre>
+ * LogLevels.setLevel(ContextType.SYSTEM, "ENTITY-TASK-MANAGER", LogType.DEBUG);
+ * LogLevels.setLevel(ContextType.HIBERNATE, LogType.DEBUG);
+ * LogLevels.clearLevel(ContextType.SYSTEM, "ENTITY-TASK-MANAGER");
+ * </pre>
+ */
+public final class LogLevels {
+	/** Level used before the platform is initialised: everything passes. */
+	private static final int UNINITIALISED_LEVEL = -2;
+
+	private static final Object LOCK = new Object();
+	private static final Map<String, Cell> CELLS = new ConcurrentHashMap<>();
+	// guarded by LOCK
+	private static final Integer[] TYPE_LEVELS = new Integer[ContextType.values().length];
+	private static Integer defaultLevel;
+
+	private LogLevels() {
+	}
+
+	/**
+	 * Sets the level of one context. Loggers of that context, existing and future
+	 * ones, pick it up immediately.
+	 *
+	 * @param type
+	 *            the context type
+	 * @param contextName
+	 *            the context name, case-insensitive
+	 * @param level
+	 *            the lowest log type that is written
+	 */
+	public static void setLevel(ContextType type, String contextName, LogType level) {
+		synchronized (LOCK) {
+			Cell cell = cell(type, contextName);
+			cell.override = level.level;
+			cell.level = resolve(cell);
+		}
+	}
+
+	/**
+	 * Removes a per-context override so the context follows its type's level
+	 * again.
+	 */
+	public static void clearLevel(ContextType type, String contextName) {
+		synchronized (LOCK) {
+			Cell cell = CELLS.get(key(type, contextName));
+			if (cell != null) {
+				cell.override = null;
+				cell.level = resolve(cell);
+			}
+		}
+	}
+
+	/**
+	 * Sets the level of every context of a type that has no override of its own.
+	 */
+	public static void setLevel(ContextType type, LogType level) {
+		synchronized (LOCK) {
+			TYPE_LEVELS[type.ordinal()] = level.level;
+			refreshLocked();
+		}
+	}
+
+	/**
+	 * Removes a per-type level so the type follows the default level again.
+	 */
+	public static void clearLevel(ContextType type) {
+		synchronized (LOCK) {
+			TYPE_LEVELS[type.ordinal()] = null;
+			refreshLocked();
+		}
+	}
+
+	/**
+	 * Sets the level of every context without a more specific setting, replacing
+	 * the platform's {@link PlatformPlugin#logLevel()}.
+	 */
+	public static void setDefaultLevel(LogType level) {
+		synchronized (LOCK) {
+			defaultLevel = level.level;
+			refreshLocked();
+		}
+	}
+
+	/**
+	 * Re-reads the platform log level. Called once the platform plugin has been
+	 * set, so loggers created before that stop letting everything through.
+	 */
+	public static void refresh() {
+		synchronized (LOCK) {
+			refreshLocked();
+		}
+	}
+
+	/**
+	 * @return the effective level of a context, as the lowest {@link LogType}
+	 *         that is written, or {@code null} if every type passes
+	 */
+	public static LogType getLevel(ContextType type, String contextName) {
+		int level = cell(type, contextName).level;
+		LogType lowest = null;
+		for (LogType logType : LogType.values()) {
+			if (logType.level >= level && (lowest == null || logType.level < lowest.level))
+				lowest = logType;
+		}
+		return lowest;
+	}
+
+	/**
+	 * The shared cell of a context, created on first use.
+	 */
+	static Cell cell(ContextType type, String contextName) {
+		Cell cell = CELLS.get(key(type, contextName));
+		if (cell != null)
+			return cell;
+		synchronized (LOCK) {
+			return CELLS.computeIfAbsent(key(type, contextName), k -> {
+				Cell created = new Cell(type);
+				created.level = resolve(created);
+				return created;
+			});
+		}
+	}
+
+	private static void refreshLocked() {
+		for (Cell cell : CELLS.values()) {
+			cell.level = resolve(cell);
+		}
+	}
+
+	private static int resolve(Cell cell) {
+		if (cell.override != null)
+			return cell.override;
+		Integer typeLevel = TYPE_LEVELS[cell.type.ordinal()];
+		if (typeLevel != null)
+			return typeLevel;
+		if (defaultLevel != null)
+			return defaultLevel;
+		return PlatformPlugin.isInitialised() ? PlatformPlugin.logLevel() : UNINITIALISED_LEVEL;
+	}
+
+	private static String key(ContextType type, String contextName) {
+		return type.name() + ':' + contextName.toUpperCase();
+	}
+
+	/**
+	 * The effective level of one context. Loggers keep a reference and read
+	 * {@link #level} on every call.
+	 */
+	static final class Cell {
+		final ContextType type;
+		/** Lowest {@link LogType} level that is written. */
+		volatile int level;
+		// guarded by LOCK
+		private Integer override;
+
+		private Cell(ContextType type) {
+			this.type = type;
+		}
+	}
+}
@@ -0,0 +1,154 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities.ContextLogger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer / single-consumer ring of reusable
+ * {@link LogEvent} slots, each created on the first lap that claims it.
+ * <p>
+ * Each slot carries a sequence number. A producer may claim position
+ * {@code p} only while the slot's sequence equals {@code p}; it fills the slot
+ * and publishes it by setting the sequence to {@code p + 1}. The consumer reads
+ * a slot once its sequence is {@code p + 1} and releases it for the next lap by
+ * setting it to {@code p + capacity}. Producers only contend on a single CAS of
+ * the claim cursor; there are no locks.
+ * </p>
+ */
+final class LogRingBuffer {
+	private final LogEvent[] slots;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong claimCursor = new AtomicLong();
+	/** Written by the consumer only. */
+	private volatile long readCursor;
+
+	LogRingBuffer(int minCapacity) {
+		int capacity = Integer.highestOneBit(Math.max(2, minCapacity) - 1) << 1;
+		this.slots = new LogEvent[capacity];
+		this.sequences = new AtomicLongArray(capacity);
+		this.mask = capacity - 1;
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * Claims the next free slot.
+	 *
+	 * @return the claimed sequence, or {@code -1} if the ring is full
+	 */
+	long tryClaim() {
+		while (true) {
+			long seq = claimCursor.get();
+			long available = sequences.get((int) seq & mask);
+			long diff = available - seq;
+			if (diff == 0) {
+				if (claimCursor.compareAndSet(seq, seq + 1)) {
+					return seq;
+				}
+			} else if (diff < 0) {
+				return -1;
+			}
+			// another producer won this position, retry with the new cursor
+		}
+	}
+
+	/**
+	 * Returns the slot for a claimed sequence. Slots are created the first time
+	 * their position is claimed and reused on every later lap, so a mostly idle
+	 * ring stays small.
+	 */
+	LogEvent get(long seq) {
+		int index = (int) seq & mask;
+		LogEvent event = slots[index];
+		if (event == null) {
+			// only the claiming producer touches an unpublished slot
+			event = new LogEvent();
+			slots[index] = event;
+		}
+		return event;
+	}
+
+	/**
+	 * Makes a claimed and filled slot visible to the consumer. This is a full
+	 * volatile write so that a following read of the consumer's park flag cannot
+	 * be reordered before it.
+	 */
+	void publish(long seq) {
+		sequences.set((int) seq & mask, seq + 1);
+	}
+
+	/** Whether the next slot in line for the consumer has been published. */
+	boolean hasPublished() {
+		long read = readCursor;
+		return sequences.get((int) read & mask) == read + 1;
+	}
+
+	/**
+	 * Hands up to {@code max} published events, in order, to the handler and
+	 * recycles their slots. Must only be called from the consumer thread.
+	 *
+	 * @return the number of events consumed
+	 */
+	int drain(Handler handler, int max) {
+		long read = readCursor;
+		int consumed = 0;
+		while (consumed < max) {
+			int index = (int) read & mask;
+			if (sequences.get(index) != read + 1) {
+				break;
+			}
+			LogEvent event = slots[index];
+			try {
+				handler.onEvent(event);
+			} finally {
+				event.clear();
+				sequences.lazySet(index, read + slots.length);
+				readCursor = ++read;
+				consumed++;
+			}
+		}
+		return consumed;
+	}
+
+	/**
+	 * Discards up to {@code max} of the oldest published events without handing
+	 * them to anyone. Consumer thread only.
+	 *
+	 * @return the number of events discarded
+	 */
+	int skip(int max) {
+		long read = readCursor;
+		int skipped = 0;
+		while (skipped < max) {
+			int index = (int) read & mask;
+			if (sequences.get(index) != read + 1) {
+				break;
+			}
+			slots[index].clear();
+			sequences.lazySet(index, read + slots.length);
+			readCursor = ++read;
+			skipped++;
+		}
+		return skipped;
+	}
+
+	boolean isEmpty() {
+		return claimCursor.get() == readCursor;
+	}
+
+	/** Approximate number of claimed but not yet consumed slots. */
+	int size() {
+		return (int) Math.max(0, claimCursor.get() - readCursor);
+	}
+
+	interface Handler {
+		void onEvent(LogEvent event);
+	}
+}
@@ -0,0 +1,99 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities.ContextLogger;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+/**
+ * A "{}" message template parsed once into literal segments. Formatting then
+ * only appends segments and arguments, instead of rescanning the template char
+ * by char on every call like {@link ContextLogger#replaceAllOrdered}.
+ * <p>
+ * Templates are cached with a size bound, since call sites that interpolate
+ * values into the template itself would otherwise grow the cache without limit.
+ * </p>
+ */
+final class MessageTemplate {
+	private static final LoadingCache<String, MessageTemplate> CACHE = Caffeine.newBuilder().maximumSize(2_048)
+			.build(MessageTemplate::compile);
+
+	/** Literal text around the placeholders; there is one more than placeholders. */
+	private final String[] segments;
+
+	private MessageTemplate(String[] segments) {
+		this.segments = segments;
+	}
+
+	static MessageTemplate of(String template) {
+		return CACHE.get(template);
+	}
+
+	static MessageTemplate compile(String template) {
+		int count = 0;
+		for (int i = template.indexOf("{}"); i >= 0; i = template.indexOf("{}", i + 2)) {
+			count++;
+		}
+		String[] segments = new String[count + 1];
+		int start = 0;
+		int index = 0;
+		for (int i = template.indexOf("{}"); i >= 0; i = template.indexOf("{}", i + 2)) {
+			segments[index++] = template.substring(start, i);
+			start = i + 2;
+		}
+		segments[index] = template.substring(start);
+		return new MessageTemplate(segments);
+	}
+
+	int placeholders() {
+		return segments.length - 1;
+	}
+
+	/** The literal text before placeholder {@code index}, or after the last one. */
+	String segment(int index) {
+		return segments[index];
+	}
+
+	/**
+	 * Appends the template with the first {@code argCount} arguments substituted
+	 * in order. Placeholders without an argument are kept as "{}", extra arguments
+	 * are ignored.
+	 */
+	void appendTo(StringBuilder sb, Object[] args, int argCount) {
+		int placeholders = segments.length - 1;
+		sb.append(segments[0]);
+		for (int i = 0; i < placeholders; i++) {
+			if (i < argCount) {
+				sb.append(args[i]);
+			} else {
+				sb.append("{}"); // no replacement left
+			}
+			sb.append(segments[i + 1]);
+		}
+	}
+
+	/** Like {@link #appendTo(StringBuilder, Object[], int)} with one unboxed argument. */
+	void appendTo(StringBuilder sb, long value) {
+		sb.append(segments[0]);
+		if (segments.length > 1) {
+			sb.append(value);
+			appendRest(sb);
+		}
+	}
+
+	/** Like {@link #appendTo(StringBuilder, Object[], int)} with one unboxed argument. */
+	void appendTo(StringBuilder sb, double value) {
+		sb.append(segments[0]);
+		if (segments.length > 1) {
+			sb.append(value);
+			appendRest(sb);
+		}
+	}
+
+	// everything after the first placeholder, remaining placeholders left as "{}"
+	private void appendRest(StringBuilder sb) {
+		sb.append(segments[1]);
+		for (int i = 2; i < segments.length; i++) {
+			sb.append("{}").append(segments[i]);
+		}
+	}
+}
@@ -0,0 +1,248 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities.ContextLogger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides what an {@link AsyncContextLogger} does when its lane is full (or,
+ * for sampling, filling up). Instances keep their own counters, so create one
+ * per logger through the factory methods:
+ *
+ * <pre>
+ * logger.setOverflowPolicy(OverflowPolicy.dropOldest());
+ * logger.setOverflowPolicy(OverflowPolicy.block(5, TimeUnit.MILLISECONDS));
+ * logger.setOverflowPolicy(OverflowPolicy.sample(0.5, 0.1));
+ * </pre>
+ */
+public abstract class OverflowPolicy {
+	protected final AtomicLong dropped = new AtomicLong();
+
+	OverflowPolicy() {
+	}
+
+	/**
+	 * Discard the message that does not fit. This is the default and never blocks
+	 * the caller.
+	 */
+	public static DropNewest dropNewest() {
+		return new DropNewest();
+	}
+
+	/**
+	 * Ask the worker to discard the oldest unwritten messages to make room. The
+	 * caller spins briefly while that happens and drops its own message if the
+	 * worker is busy.
+	 */
+	public static DropOldest dropOldest() {
+		return new DropOldest();
+	}
+
+	/**
+	 * Park the caller until there is room or the timeout passes, then drop.
+	 */
+	public static Block block(long timeout, TimeUnit unit) {
+		return new Block(unit.toNanos(timeout));
+	}
+
+	/**
+	 * Once the lane is at least half full, keep only a random
+	 * {@code keepProbability} share of new messages.
+	 */
+	public static Sample sample(double keepProbability) {
+		return sample(0.5, keepProbability);
+	}
+
+	/**
+	 * Once the lane is at least {@code fillRatio} full, keep only a random
+	 * {@code keepProbability} share of new messages.
+	 */
+	public static Sample sample(double fillRatio, double keepProbability) {
+		if (fillRatio < 0 || fillRatio > 1 || keepProbability < 0 || keepProbability > 1)
+			throw new IllegalArgumentException("Ratios must be within [0, 1]");
+		return new Sample(fillRatio, keepProbability);
+	}
+
+	/**
+	 * @return messages this policy discarded because no slot could be claimed
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Called before claiming a slot.
+	 *
+	 * @return false to reject the message up front
+	 */
+	boolean admit(LogRingBuffer ring) {
+		return true;
+	}
+
+	/**
+	 * Called when a claim failed because the lane is full.
+	 *
+	 * @return a claimed sequence, or {@code -1} to drop the message
+	 */
+	abstract long onFull(AsyncLogDispatcher.Lane lane);
+
+	/** Called by the worker after discarding {@code count} old messages. */
+	void onEvicted(int count) {
+	}
+
+	public static final class DropNewest extends OverflowPolicy {
+		private DropNewest() {
+		}
+
+		@Override
+		long onFull(AsyncLogDispatcher.Lane lane) {
+			dropped.incrementAndGet();
+			return -1;
+		}
+
+		@Override
+		public String toString() {
+			return "DropNewest[dropped=" + dropped.get() + "]";
+		}
+	}
+
+	public static final class DropOldest extends OverflowPolicy {
+		private static final int SPINS = 1024;
+		private final AtomicLong evicted = new AtomicLong();
+
+		private DropOldest() {
+		}
+
+		/**
+		 * @return old messages the worker discarded to make room
+		 */
+		public long getEvictedCount() {
+			return evicted.get();
+		}
+
+		@Override
+		long onFull(AsyncLogDispatcher.Lane lane) {
+			lane.evictions.incrementAndGet();
+			lane.worker.signal();
+			for (int i = 0; i < SPINS; i++) {
+				long seq = lane.ring.tryClaim();
+				if (seq >= 0) {
+					// room appeared; take back our request if the worker has not served it yet
+					lane.evictions.updateAndGet(v -> v > 0 ? v - 1 : 0);
+					return seq;
+				}
+				Thread.onSpinWait();
+			}
+			dropped.incrementAndGet();
+			return -1;
+		}
+
+		@Override
+		void onEvicted(int count) {
+			evicted.addAndGet(count);
+		}
+
+		@Override
+		public String toString() {
+			return "DropOldest[evicted=" + evicted.get() + ", dropped=" + dropped.get() + "]";
+		}
+	}
+
+	public static final class Block extends OverflowPolicy {
+		private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+		private final long timeoutNanos;
+		private final AtomicLong blocked = new AtomicLong();
+		private final AtomicLong blockedNanos = new AtomicLong();
+
+		private Block(long timeoutNanos) {
+			this.timeoutNanos = Math.max(0, timeoutNanos);
+		}
+
+		/**
+		 * @return calls that had to wait for room
+		 */
+		public long getBlockedCount() {
+			return blocked.get();
+		}
+
+		/**
+		 * @return total time callers spent waiting, in nanoseconds
+		 */
+		public long getBlockedNanos() {
+			return blockedNanos.get();
+		}
+
+		/**
+		 * @return calls that gave up after the timeout; same as
+		 *         {@link #getDroppedCount()}
+		 */
+		public long getTimedOutCount() {
+			return dropped.get();
+		}
+
+		@Override
+		long onFull(AsyncLogDispatcher.Lane lane) {
+			blocked.incrementAndGet();
+			long start = System.nanoTime();
+			try {
+				while (System.nanoTime() - start < timeoutNanos) {
+					lane.worker.signal();
+					LockSupport.parkNanos(this, PARK_NANOS);
+					long seq = lane.ring.tryClaim();
+					if (seq >= 0)
+						return seq;
+				}
+				dropped.incrementAndGet();
+				return -1;
+			} finally {
+				blockedNanos.addAndGet(System.nanoTime() - start);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Block[blocked=" + blocked.get() + ", timedOut=" + dropped.get() + "]";
+		}
+	}
+
+	public static final class Sample extends OverflowPolicy {
+		private final double fillRatio;
+		private final double keepProbability;
+		private final AtomicLong sampledOut = new AtomicLong();
+
+		private Sample(double fillRatio, double keepProbability) {
+			this.fillRatio = fillRatio;
+			this.keepProbability = keepProbability;
+		}
+
+		/**
+		 * @return messages rejected by sampling while the lane was filling up
+		 */
+		public long getSampledOutCount() {
+			return sampledOut.get();
+		}
+
+		@Override
+		boolean admit(LogRingBuffer ring) {
+			if (ring.size() < ring.capacity() * fillRatio)
+				return true;
+			if (ThreadLocalRandom.current().nextDouble() < keepProbability)
+				return true;
+			sampledOut.incrementAndGet();
+			return false;
+		}
+
+		@Override
+		long onFull(AsyncLogDispatcher.Lane lane) {
+			dropped.incrementAndGet();
+			return -1;
+		}
+
+		@Override
+		public String toString() {
+			return "Sample[sampledOut=" + sampledOut.get() + ", dropped=" + dropped.get() + "]";
+		}
+	}
+}
@@ -0,0 +1,560 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import org.spongepowered.configurate.ConfigurateException;
+import org.spongepowered.configurate.ConfigurationNode;
+import org.spongepowered.configurate.jackson.JacksonConfigurationLoader;
+import org.spongepowered.configurate.serialize.SerializationException;
+import org.spongepowered.configurate.yaml.YamlConfigurationLoader;
+import org.vicky.platform.IColor;
+import org.vicky.platform.ParticleSpec;
+import org.vicky.platform.defaults.CommonParticle;
+import org.vicky.platform.defaults.VanillaColor;
+import org.vicky.platform.entity.PlatformEntity;
+import org.vicky.platform.utils.Vec3Array;
+import org.vicky.platform.world.PlatformLocation;
+import org.vicky.platform.world.PlatformWorld;
+
+/**
+ * A particle effect described in YAML or JSON and compiled once, at load time,
+ * into a flat list of operations over {@link Vec3Array}s.
+ * <p>
+ * An effect is a stack of layers. Each layer places one of the
+ * {@link ParticleTypeEffect.ParticleTypeEffects} shapes, transforms it, and
+ * spawns it with its own particle, on its own clock:
+ * </p>
+ *
+ * <pre>
+ * orient: true          # turn with the entity's yaw and pitch
+ * duration: 0           # milliseconds, 0 for as long as the entity lives
+ * view-distance: 32
+ * layers:
+ *   - shape: helix
+ *     radius: 1.4
+ *     count: 40
+ *     height-step: 0.5
+ *     frequency: 0.5    # pulse_waves and oscillating_rings
+ *     spacing: linear   # ripples
+ *     circles: 3        # ripples
+ *     fast-trig: false
+ *     baked-frames: 0
+ *     timing: { speed: 1, phase: 0, delay: 0, duration: 0 }
+ *     transforms:
+ *       - scale: [1, 2, 1]
+ *       - rotate: { yaw: 0, pitch: 90, roll: 0 }
+ *       - translate: [0, 1, 0]
+ *       - spin: 0.5
+ *     particle: { type: redstone, color: [200, 150, 0], size: 1.5, count: 1, spread: 0, speed: 0 }
+ * </pre>
+ *
+ * Shapes resolve to shared {@link ShapeTemplate}s, and consecutive scales,
+ * rotations and translations fold into a single affine step, so a frame runs
+ * the compiled operations in order with no lookups or branching on the shape
+ * kind. {@code spin} turns the layer around its Y axis by {@code rate} radians
+ * per radian of the layer's angle, so it is the one per-frame transform.
+ * Timing {@code speed} scales the layer's angle, which advances one radian per
+ * 10 ms like {@link ParticleTask}'s; {@code delay} and {@code duration} are in
+ * milliseconds from the effect's start.
+ * <p>
+ * Definitions are immutable and may be attached to any number of entities.
+ * </p>
+ */
+public final class EffectDefinition {
+  private final Op[] ops;
+  private final ParticleSpec[] specs;
+  private final int[] sizes;
+  private final boolean orient;
+  private final long duration;
+  private final ParticleLod lod;
+
+  private EffectDefinition(
+      Op[] ops, ParticleSpec[] specs, int[] sizes, boolean orient, long duration, ParticleLod lod) {
+    this.ops = ops;
+    this.specs = specs;
+    this.sizes = sizes;
+    this.orient = orient;
+    this.duration = duration;
+    this.lod = lod;
+  }
+
+  /**
+   * Loads and compiles a definition file: JSON for {@code .json} files, YAML
+   * otherwise.
+   *
+   * @throws ConfigurateException if the file cannot be read or describes an
+   *     invalid effect
+   */
+  public static EffectDefinition load(Path path) throws ConfigurateException {
+    ConfigurationNode root =
+        path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")
+            ? JacksonConfigurationLoader.builder().path(path).build().load()
+            : YamlConfigurationLoader.builder().path(path).build().load();
+    return compile(root);
+  }
+
+  /**
+   * Compiles a definition from an already loaded node.
+   *
+   * @throws SerializationException if the node describes an invalid effect
+   */
+  public static EffectDefinition compile(ConfigurationNode root) throws SerializationException {
+    List<? extends ConfigurationNode> layerNodes = root.node("layers").childrenList();
+    if (layerNodes.isEmpty()) {
+      throw new SerializationException(
+          root.node("layers"), List.class, "An effect needs at least one layer");
+    }
+    List<Op> ops = new ArrayList<>();
+    ParticleSpec[] specs = new ParticleSpec[layerNodes.size()];
+    int[] sizes = new int[layerNodes.size()];
+    for (int layer = 0; layer < layerNodes.size(); layer++) {
+      ConfigurationNode node = layerNodes.get(layer);
+      ShapeTemplate template = template(node);
+      sizes[layer] = template.size();
+      specs[layer] = spec(node.node("particle"));
+
+      ConfigurationNode timing = node.node("timing");
+      ops.add(
+          new Clock(
+              layer,
+              timing.node("delay").getLong(0),
+              timing.node("duration").getLong(0),
+              timing.node("speed").getDouble(1),
+              timing.node("phase").getDouble(0)));
+      int bakedFrames = node.node("baked-frames").getInt(0);
+      BakedAnimation baked = bakedFrames > 0 ? BakedAnimation.of(template, bakedFrames) : null;
+      ops.add(baked != null ? new PlayBaked(layer, baked) : new Place(layer, template));
+      transforms(layer, node.node("transforms"), ops);
+      ops.add(new Anchor(layer));
+    }
+
+    ParticleLod lod = ParticleLod.DEFAULT;
+    ConfigurationNode viewDistance = root.node("view-distance");
+    if (!viewDistance.virtual()) {
+      double distance = viewDistance.getDouble();
+      if (!(distance > 0)) {
+        throw new SerializationException(
+            viewDistance, Double.class, "View distance must be positive");
+      }
+      lod = lod.withViewDistance(distance);
+    }
+    return new EffectDefinition(
+        ops.toArray(new Op[0]),
+        specs,
+        sizes,
+        root.node("orient").getBoolean(true),
+        root.node("duration").getLong(0),
+        lod);
+  }
+
+  /**
+   * Creates a running instance of the effect that follows an entity, to be
+   * registered with a {@link ParticleEngine}. It ends when the entity dies or
+   * the effect's duration is over.
+   */
+  public ParticleEngine.Effect attach(PlatformEntity entity, long startTime) {
+    return new Instance(entity, startTime);
+  }
+
+  /** Like {@link #attach(PlatformEntity, long)}, starting now. */
+  public ParticleEngine.Effect attach(PlatformEntity entity) {
+    return attach(entity, System.currentTimeMillis());
+  }
+
+  /** Particles spawned per frame at full detail. */
+  public int points() {
+    int total = 0;
+    for (int size : sizes) {
+      total += size;
+    }
+    return total;
+  }
+
+  public int layers() {
+    return specs.length;
+  }
+
+  private static ShapeTemplate template(ConfigurationNode node) throws SerializationException {
+    ParticleTypeEffect.ParticleTypeEffects shape =
+        constant(node.node("shape"), ParticleTypeEffect.ParticleTypeEffects.class, null);
+    // the defaults ParticleTask falls back to
+    double frequency = shape == ParticleTypeEffect.ParticleTypeEffects.PULSE_WAVES ? 0.2 : 0.5;
+    return ShapeTemplate.of(
+        shape,
+        node.node("radius").getDouble(1),
+        node.node("height-step").getDouble(1),
+        node.node("count").getInt(20),
+        node.node("frequency").getDouble(frequency),
+        constant(
+            node.node("spacing"),
+            ParticleTypeEffect.SpacingMode.class,
+            ParticleTypeEffect.SpacingMode.LINEAR),
+        node.node("circles").getInt(20),
+        node.node("fast-trig").getBoolean(false));
+  }
+
+  private static ParticleSpec spec(ConfigurationNode node) throws SerializationException {
+    CommonParticle type =
+        constant(node.node("type"), CommonParticle.class, CommonParticle.REDSTONE);
+    int count = node.node("count").getInt(1);
+    double[] spread = vector(node.node("spread"), 0);
+    float speed = (float) node.node("speed").getDouble(0);
+    float size = (float) node.node("size").getDouble(1);
+    if (type.supportsTransition()) {
+      return ParticleSpec.transition(
+          type,
+          count,
+          spread[0],
+          spread[1],
+          spread[2],
+          speed,
+          color(node.node("color"), VanillaColor.PURPLE),
+          color(node.node("color-end"), VanillaColor.BLUE),
+          size);
+    } else if (type.supportsColor()) {
+      IColor color = color(node.node("color"), VanillaColor.RED);
+      return ParticleSpec.colored(
+          type, count, spread[0], spread[1], spread[2], speed, color, size);
+    }
+    return ParticleSpec.basic(type, count, spread[0], spread[1], spread[2], speed, size);
+  }
+
+  // folds runs of static transforms into one affine op; spin breaks a run
+  private static void transforms(int layer, ConfigurationNode node, List<Op> ops)
+      throws SerializationException {
+    Affine pending = Affine.identity(layer);
+    for (ConfigurationNode transform : node.childrenList()) {
+      if (!transform.node("scale").virtual()) {
+        double[] s = vector(transform.node("scale"), 1);
+        pending = pending.then(s[0], 0, 0, 0, s[1], 0, 0, 0, s[2], 0, 0, 0);
+      } else if (!transform.node("rotate").virtual()) {
+        ConfigurationNode rotate = transform.node("rotate");
+        pending = pending.then(
+            rotation(
+                rotate.node("yaw").getDouble(0),
+                rotate.node("pitch").getDouble(0),
+                rotate.node("roll").getDouble(0)));
+      } else if (!transform.node("translate").virtual()) {
+        double[] t = vector(transform.node("translate"), 0);
+        pending = pending.then(1, 0, 0, 0, 1, 0, 0, 0, 1, t[0], t[1], t[2]);
+      } else if (!transform.node("spin").virtual()) {
+        if (!pending.isIdentity()) {
+          ops.add(pending);
+          pending = Affine.identity(layer);
+        }
+        ops.add(new Spin(layer, transform.node("spin").getDouble()));
+      } else {
+        throw new SerializationException(
+            transform, Object.class, "Expected one of scale, rotate, translate or spin");
+      }
+    }
+    if (!pending.isIdentity()) {
+      ops.add(pending);
+    }
+  }
+
+  // roll around Z, then pitch around X, then yaw around Y; degrees
+  private static Affine rotation(double yaw, double pitch, double roll) {
+    double cy = Math.cos(Math.toRadians(yaw)), sy = Math.sin(Math.toRadians(yaw));
+    double cp = Math.cos(Math.toRadians(pitch)), sp = Math.sin(Math.toRadians(pitch));
+    double cr = Math.cos(Math.toRadians(roll)), sr = Math.sin(Math.toRadians(roll));
+    Affine rz = new Affine(-1, cr, -sr, 0, sr, cr, 0, 0, 0, 1, 0, 0, 0);
+    Affine rx = new Affine(-1, 1, 0, 0, 0, cp, -sp, 0, sp, cp, 0, 0, 0);
+    Affine ry = new Affine(-1, cy, 0, sy, 0, 1, 0, -sy, 0, cy, 0, 0, 0);
+    return rz.then(rx).then(ry);
+  }
+
+  private static <E extends Enum<E>> E constant(ConfigurationNode node, Class<E> type, E fallback)
+      throws SerializationException {
+    String name = node.getString();
+    if (name == null) {
+      if (fallback == null) {
+        throw new SerializationException(node, type, "Missing " + type.getSimpleName());
+      }
+      return fallback;
+    }
+    try {
+      return Enum.valueOf(type, name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    } catch (IllegalArgumentException e) {
+      throw new SerializationException(
+          node, type, "Unknown " + type.getSimpleName() + " '" + name + "'");
+    }
+  }
+
+  // a number for all three axes, or a list of three
+  private static double[] vector(ConfigurationNode node, double fallback)
+      throws SerializationException {
+    if (node.virtual()) {
+      return new double[] {fallback, fallback, fallback};
+    }
+    if (!node.isList()) {
+      double value = number(node);
+      return new double[] {value, value, value};
+    }
+    List<? extends ConfigurationNode> parts = node.childrenList();
+    if (parts.size() != 3) {
+      throw new SerializationException(
+          node, double[].class, "Expected three components, got " + parts.size());
+    }
+    return new double[] {number(parts.get(0)), number(parts.get(1)), number(parts.get(2))};
+  }
+
+  // unlike getDouble(), rejects values that are missing or not numbers instead of reading 0
+  private static double number(ConfigurationNode node) throws SerializationException {
+    Double value = node.get(Double.class);
+    if (value == null || !Double.isFinite(value)) {
+      throw new SerializationException(node, Double.class, "Expected a number, got " + value);
+    }
+    return value;
+  }
+
+  // [r, g, b] or "#rrggbb"
+  private static IColor color(ConfigurationNode node, IColor fallback)
+      throws SerializationException {
+    if (node.virtual()) {
+      return fallback;
+    }
+    if (node.isList()) {
+      List<? extends ConfigurationNode> parts = node.childrenList();
+      if (parts.size() != 3) {
+        throw new SerializationException(
+            node, IColor.class, "Expected [r, g, b], got " + parts.size() + " components");
+      }
+      return new VanillaColor(channel(parts.get(0)), channel(parts.get(1)), channel(parts.get(2)));
+    }
+    String hex = node.getString("");
+    String digits = hex.startsWith("#") ? hex.substring(1) : hex;
+    try {
+      int rgb = digits.length() == 6 ? Integer.parseInt(digits, 16) : -1;
+      if (rgb >= 0) {
+        return new VanillaColor((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw new SerializationException(
+        node, IColor.class, "Expected [r, g, b] or #rrggbb, got '" + hex + "'");
+  }
+
+  private static int channel(ConfigurationNode node) throws SerializationException {
+    double value = number(node);
+    if (value < 0 || value > 255) {
+      throw new SerializationException(
+          node, IColor.class, "Color components must be between 0 and 255, got " + value);
+    }
+    return (int) value;
+  }
+
+  /** One compiled step of a frame, run against an instance's buffers. */
+  private interface Op {
+    void run(Instance instance);
+  }
+
+  // works out the layer's angle, or empties it outside its time window
+  private record Clock(int layer, long delay, long duration, double speed, double phase)
+      implements Op {
+    @Override
+    public void run(Instance instance) {
+      long local = instance.elapsed - delay;
+      boolean active = local >= 0 && (duration <= 0 || local < duration);
+      instance.active[layer] = active;
+      instance.angles[layer] = local / 10.0 * speed + phase;
+      if (!active) {
+        instance.buffers[layer].clear();
+      }
+    }
+  }
+
+  private record Place(int layer, ShapeTemplate template) implements Op {
+    @Override
+    public void run(Instance instance) {
+      if (instance.active[layer]) {
+        template.place(instance.angles[layer], 0, 0, 0, instance.buffers[layer], instance.random);
+      }
+    }
+  }
+
+  private record PlayBaked(int layer, BakedAnimation animation) implements Op {
+    @Override
+    public void run(Instance instance) {
+      if (instance.active[layer]) {
+        animation.place(instance.angles[layer], 0, 0, 0, instance.buffers[layer]);
+      }
+    }
+  }
+
+  // p' = M p + t, row-major M; layer -1 while only a factor being folded
+  private record Affine(
+      int layer,
+      double m00,
+      double m01,
+      double m02,
+      double m10,
+      double m11,
+      double m12,
+      double m20,
+      double m21,
+      double m22,
+      double tx,
+      double ty,
+      double tz)
+      implements Op {
+    static Affine identity(int layer) {
+      return new Affine(layer, 1, 0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0);
+    }
+
+    boolean isIdentity() {
+      return m00 == 1 && m01 == 0 && m02 == 0
+          && m10 == 0 && m11 == 1 && m12 == 0
+          && m20 == 0 && m21 == 0 && m22 == 1
+          && tx == 0 && ty == 0 && tz == 0;
+    }
+
+    // this transform followed by the given one
+    Affine then(
+        double n00, double n01, double n02,
+        double n10, double n11, double n12,
+        double n20, double n21, double n22,
+        double ux, double uy, double uz) {
+      return new Affine(
+          layer,
+          n00 * m00 + n01 * m10 + n02 * m20,
+          n00 * m01 + n01 * m11 + n02 * m21,
+          n00 * m02 + n01 * m12 + n02 * m22,
+          n10 * m00 + n11 * m10 + n12 * m20,
+          n10 * m01 + n11 * m11 + n12 * m21,
+          n10 * m02 + n11 * m12 + n12 * m22,
+          n20 * m00 + n21 * m10 + n22 * m20,
+          n20 * m01 + n21 * m11 + n22 * m21,
+          n20 * m02 + n21 * m12 + n22 * m22,
+          n00 * tx + n01 * ty + n02 * tz + ux,
+          n10 * tx + n11 * ty + n12 * tz + uy,
+          n20 * tx + n21 * ty + n22 * tz + uz);
+    }
+
+    Affine then(Affine next) {
+      return then(
+          next.m00, next.m01, next.m02,
+          next.m10, next.m11, next.m12,
+          next.m20, next.m21, next.m22,
+          next.tx, next.ty, next.tz);
+    }
+
+    @Override
+    public void run(Instance instance) {
+      Vec3Array points = instance.buffers[layer];
+      double[] xs = points.xs();
+      double[] ys = points.ys();
+      double[] zs = points.zs();
+      for (int i = 0, n = points.size(); i < n; i++) {
+        double x = xs[i], y = ys[i], z = zs[i];
+        xs[i] = m00 * x + m01 * y + m02 * z + tx;
+        ys[i] = m10 * x + m11 * y + m12 * z + ty;
+        zs[i] = m20 * x + m21 * y + m22 * z + tz;
+      }
+    }
+  }
+
+  // turns the layer around its Y axis as its angle advances, the same way as ShapeTemplate's shapes
+  private record Spin(int layer, double rate) implements Op {
+    @Override
+    public void run(Instance instance) {
+      double turn = instance.angles[layer] * rate;
+      double cos = Math.cos(turn);
+      double sin = Math.sin(turn);
+      Vec3Array points = instance.buffers[layer];
+      double[] xs = points.xs();
+      double[] zs = points.zs();
+      for (int i = 0, n = points.size(); i < n; i++) {
+        double x = xs[i], z = zs[i];
+        xs[i] = x * cos - z * sin;
+        zs[i] = x * sin + z * cos;
+      }
+    }
+  }
+
+  // moves the layer from the effect's local space to the entity
+  private record Anchor(int layer) implements Op {
+    @Override
+    public void run(Instance instance) {
+      Vec3Array points = instance.buffers[layer];
+      if (instance.orientation != null) {
+        ParallelShapes.rotate(instance.orientation, points, 0, 0, 0);
+      }
+      points.translate(instance.loc.getX(), instance.loc.getY(), instance.loc.getZ());
+    }
+  }
+
+  private final class Instance implements ParticleEngine.Effect {
+    private final PlatformEntity entity;
+    private final long startTime;
+    private final Vec3Array[] buffers = new Vec3Array[specs.length];
+    private final double[] angles = new double[specs.length];
+    private final boolean[] active = new boolean[specs.length];
+    private final QuaternionRotation rotation = new QuaternionRotation();
+    private final SplittableRandom random = new SplittableRandom();
+    private long elapsed;
+    private RotationMatrix orientation;
+    private PlatformLocation loc;
+
+    private Instance(PlatformEntity entity, long startTime) {
+      this.entity = entity;
+      this.startTime = startTime;
+      for (int i = 0; i < buffers.length; i++) {
+        buffers[i] = new Vec3Array(sizes[i]);
+      }
+    }
+
+    @Override
+    public boolean update(ParticleEngine.Frame frame) {
+      elapsed = frame.getTimeMillis() - startTime;
+      if (entity.isDead() || (duration > 0 && elapsed >= duration)) {
+        return false;
+      }
+      loc = entity.getLocation();
+      orientation = orient ? rotation.matrix(loc.getYaw(), loc.getPitch()) : null;
+      for (Op op : ops) {
+        op.run(this);
+      }
+      return true;
+    }
+
+    @Override
+    public boolean skip(ParticleEngine.Frame frame) {
+      return !entity.isDead() && (duration <= 0 || frame.getTimeMillis() - startTime < duration);
+    }
+
+    @Override
+    public int cost() {
+      // every point spawns its layer's particle count
+      int cost = 0;
+      for (int i = 0; i < buffers.length; i++) {
+        cost += buffers[i].size() * specs[i].getCount();
+      }
+      return cost;
+    }
+
+    @Override
+    public void emit(ParticleEngine.Frame frame) {
+      PlatformWorld world = loc.getWorld();
+      for (int i = 0; i < buffers.length; i++) {
+        frame.spawn(world, buffers[i], specs[i]);
+      }
+    }
+
+    @Override
+    public PlatformLocation position() {
+      return entity.getLocation();
+    }
+
+    @Override
+    public ParticleLod lod() {
+      return lod;
+    }
+  }
+}
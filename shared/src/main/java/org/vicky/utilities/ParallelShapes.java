@@ -0,0 +1,193 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.vicky.platform.utils.Vec3Array;
+
+/**
+ * Places and rotates large shapes on a small shared worker pool.
+ * <p>
+ * Shapes below {@link #parallelThreshold()} points are computed on the calling
+ * thread; forking costs more than it saves for them. Larger ones are split into
+ * chunks of {@link #CHUNK_SIZE} points, each placed and rotated by one worker
+ * while the calling thread waits and helps. The buffer is complete when the
+ * call returns, so the caller still spawns from it, in order, on its own
+ * thread.
+ * </p>
+ * <p>
+ * The parallel path is held back until a threshold has been measured on
+ * multi-core hosts: every shape is computed on the calling thread, and only
+ * {@code ParallelShapesBenchmark} switches the pool on, through
+ * {@link #setParallelThreshold(int)}, to find where forking starts to pay.
+ * Once it has numbers, the measured size becomes the default here.
+ * </p>
+ * Random shapes give each chunk a {@link SplittableRandom#split()} of the
+ * caller's source, split in chunk order on both paths, so a seeded task places
+ * the same points whether or not the shape was computed in parallel. Periodic
+ * shapes never draw from it and are not split.
+ * The pool uses at most four threads, and never more than the machine has
+ * cores minus one.
+ */
+public final class ParallelShapes {
+  /** A threshold no shape reaches, which keeps every shape on the calling thread. */
+  static final int DISABLED = Integer.MAX_VALUE;
+  /** Points placed and rotated by one worker task. */
+  public static final int CHUNK_SIZE = 4_096;
+
+  private static final int PARALLELISM =
+      Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+  private static volatile int parallelThreshold = DISABLED;
+
+  private ParallelShapes() {}
+
+  /**
+   * @return the number of points from which shapes are computed in parallel, or
+   *     {@link #DISABLED}
+   */
+  static int parallelThreshold() {
+    return parallelThreshold;
+  }
+
+  /**
+   * Sets the number of points from which shapes are computed in parallel.
+   * Hosts with fewer than three cores never compute in parallel.
+   *
+   * @param threshold the size in points, or {@link #DISABLED}
+   */
+  static void setParallelThreshold(int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("Threshold must not be negative, got " + threshold);
+    }
+    parallelThreshold = threshold;
+  }
+
+  /**
+   * Places a shape into a buffer, replacing its contents, then rotates it around
+   * a pivot.
+   *
+   * @param rotation the rotation to apply after placing, or {@code null} for none
+   * @param source   the caller's random source; each chunk of a random shape
+   *     uses a split of it
+   */
+  public static void placeAndRotate(
+      ShapeTemplate shape,
+      double angle,
+      double originX,
+      double originY,
+      double originZ,
+      Vec3Array out,
+      SplittableRandom source,
+      RotationMatrix rotation,
+      double pivotX,
+      double pivotY,
+      double pivotZ) {
+    int size = shape.size();
+    out.resize(size);
+    boolean random = shape.isRandom();
+    if (size < parallelThreshold || PARALLELISM < 2) {
+      if (!random) {
+        shape.place(angle, originX, originY, originZ, out.xs(), out.ys(), out.zs(), source, 0, size);
+      } else {
+        // one split per chunk, in chunk order, as the parallel path takes them
+        for (int from = 0; from < size; from += CHUNK_SIZE) {
+          int to = Math.min(size, from + CHUNK_SIZE);
+          shape.place(
+              angle, originX, originY, originZ, out.xs(), out.ys(), out.zs(), source.split(), from, to);
+        }
+      }
+      if (rotation != null) {
+        rotation.apply(out, pivotX, pivotY, pivotZ, 0, size);
+      }
+      return;
+    }
+    int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    Pool.POOL.invoke(
+        new RecursiveAction() {
+          @Override
+          protected void compute() {
+            RecursiveAction[] tasks = new RecursiveAction[chunks];
+            for (int c = 0; c < chunks; c++) {
+              int from = c * CHUNK_SIZE;
+              int to = Math.min(size, from + CHUNK_SIZE);
+              // splits are taken here, in chunk order, before any chunk runs;
+              // periodic shapes never draw, so their chunks share the source
+              SplittableRandom chunkRandom = random ? source.split() : source;
+              tasks[c] =
+                  new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                      shape.place(
+                          angle,
+                          originX,
+                          originY,
+                          originZ,
+                          out.xs(),
+                          out.ys(),
+                          out.zs(),
+                          chunkRandom,
+                          from,
+                          to);
+                      if (rotation != null) {
+                        rotation.apply(out, pivotX, pivotY, pivotZ, from, to);
+                      }
+                    }
+                  };
+            }
+            invokeAll(tasks);
+          }
+        });
+  }
+
+  /**
+   * Rotates a buffer around a pivot, in place, in parallel chunks when it is
+   * large enough.
+   */
+  public static void rotate(
+      RotationMatrix rotation, Vec3Array points, double pivotX, double pivotY, double pivotZ) {
+    int size = points.size();
+    if (size < parallelThreshold || PARALLELISM < 2) {
+      rotation.apply(points, pivotX, pivotY, pivotZ, 0, size);
+      return;
+    }
+    int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    Pool.POOL.invoke(
+        new RecursiveAction() {
+          @Override
+          protected void compute() {
+            RecursiveAction[] tasks = new RecursiveAction[chunks];
+            for (int c = 0; c < chunks; c++) {
+              int from = c * CHUNK_SIZE;
+              int to = Math.min(size, from + CHUNK_SIZE);
+              tasks[c] =
+                  new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                      rotation.apply(points, pivotX, pivotY, pivotZ, from, to);
+                    }
+                  };
+            }
+            invokeAll(tasks);
+          }
+        });
+  }
+
+  // created on first use, so servers without large effects never start the threads
+  private static final class Pool {
+    static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM, Pool::newThread, null, false);
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private static ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+      ForkJoinWorkerThread thread =
+          ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("ParticleShapes-" + THREADS.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
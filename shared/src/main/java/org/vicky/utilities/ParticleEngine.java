@@ -0,0 +1,661 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.vicky.platform.ParticleSpec;
+import org.vicky.platform.PlatformParticleProvider;
+import org.vicky.platform.PlatformPlugin;
+import org.vicky.platform.player.PlatformPlayer;
+import org.vicky.platform.server.PlatformScheduler;
+import org.vicky.platform.server.PlatformTask;
+import org.vicky.platform.utils.Vec3Array;
+import org.vicky.platform.world.PlatformLocation;
+import org.vicky.platform.world.PlatformWorld;
+import org.vicky.utilities.ContextLogger.ContextLogger;
+
+/**
+ * Owns every running particle effect and advances them together, once per
+ * frame, from a single repeating scheduler task.
+ * <p>
+ * A frame runs in two phases. In {@link Phase#UPDATE} the engine first finds
+ * each effect's nearest player: effects nobody is close enough to see are
+ * culled and not advanced at all, and distant ones are thinned according to
+ * their {@link ParticleLod}. Every other effect advances its state and reports
+ * whether it is still alive. In {@link Phase#EMIT} effects
+ * spawn their particles within the frame's particle budget, which is shared by
+ * priority and weight using deficit round robin. Effects over their share are
+ * thinned or deferred to a later frame instead of being dropped, so a few large
+ * effects cannot flood clients or stall the server tick. A deferred effect
+ * keeps the particles it computed and is not updated again until they have
+ * been spawned. Only an emission that found no budget for
+ * {@value #MAX_DEFERRED_FRAMES} frames in a row, because higher priorities
+ * take all of it, is dropped, so the effect can move on.
+ * </p>
+ * Effects are registered from any thread and are controlled through the
+ * returned {@link Handle}. The repeating task only exists while there are
+ * effects to run.
+ *
+ * <pre>
+ * ParticleEngine.Handle handle = new ParticleTaskBuilder().setArrow(arrow).start();
+ * handle.pause();
+ * handle.cancel();
+ * </pre>
+ */
+public final class ParticleEngine {
+  /** Default cap on particles spawned per frame across all effects. */
+  public static final int DEFAULT_FRAME_BUDGET = 4_000;
+
+  /**
+   * Thinnest an over-budget emission is made while it can still earn more
+   * budget by waiting; past this it is deferred instead.
+   */
+  private static final int MAX_THINNING = 4;
+  /**
+   * Frames an emission may wait for budget before it is dropped and its effect
+   * updated again. Higher priorities can use the whole budget, so without a
+   * bound a starved effect would never advance, nor notice that it has ended.
+   */
+  private static final int MAX_DEFERRED_FRAMES = 20;
+  private static final Comparator<Handle> BY_PRIORITY =
+      (a, b) -> Integer.compare(b.rank, a.rank);
+
+  private static final ContextLogger LOGGER =
+      new ContextLogger(ContextLogger.ContextType.SYSTEM, "PARTICLE-ENGINE");
+  private static volatile ParticleEngine shared;
+
+  private final PlatformScheduler scheduler;
+  private final long intervalTicks;
+  private final Queue<Handle> added = new ConcurrentLinkedQueue<>();
+  // tick thread only
+  private final List<Handle> active = new ArrayList<>();
+  private final Frame frame = new Frame();
+  private int cursor;
+  // player lists of the worlds looked up this frame
+  private final Map<PlatformWorld, List<? extends PlatformPlayer>> viewers = new HashMap<>();
+
+  private volatile int frameBudget = DEFAULT_FRAME_BUDGET;
+  private volatile boolean paused;
+  private volatile long frameNumber;
+  private volatile long deferred;
+  private volatile long dropped;
+  private volatile long culled;
+  private volatile long thinned;
+  private volatile long spawned;
+  // guarded by this
+  private PlatformTask task;
+
+  /**
+   * @param scheduler     the scheduler that drives the frames
+   * @param intervalTicks server ticks between frames (1 = every tick)
+   */
+  public ParticleEngine(PlatformScheduler scheduler, long intervalTicks) {
+    if (intervalTicks < 1) {
+      throw new IllegalArgumentException("Interval must be at least one tick, got " + intervalTicks);
+    }
+    this.scheduler = scheduler;
+    this.intervalTicks = intervalTicks;
+  }
+
+  /**
+   * @return the engine running once per tick on the platform's scheduler
+   */
+  public static ParticleEngine shared() {
+    ParticleEngine engine = shared;
+    if (engine == null) {
+      synchronized (ParticleEngine.class) {
+        engine = shared;
+        if (engine == null) {
+          engine = new ParticleEngine(PlatformPlugin.server().getScheduler(), 1);
+          shared = engine;
+        }
+      }
+    }
+    return engine;
+  }
+
+  /**
+   * Starts running an effect from the next frame on.
+   *
+   * @return the handle that controls the effect
+   */
+  public Handle register(Effect effect) {
+    return register(effect, 0, 1);
+  }
+
+  /**
+   * Starts running an effect with a budget priority and weight.
+   *
+   * @param priority higher priorities are served first when the frame budget is short
+   * @param weight   the effect's share of the budget relative to effects of the same priority
+   * @return the handle that controls the effect
+   */
+  public Handle register(Effect effect, int priority, int weight) {
+    Handle handle = new Handle(this, effect);
+    handle.setPriority(priority);
+    handle.setWeight(weight);
+    added.add(handle);
+    synchronized (this) {
+      if (task == null) {
+        task = scheduler.runRepeating(this::tick, 0, intervalTicks);
+      }
+    }
+    return handle;
+  }
+
+  /**
+   * Stops an effect. Same as {@link Handle#cancel()}.
+   */
+  public void unregister(Handle handle) {
+    handle.cancel();
+  }
+
+  /** Stops advancing all effects until {@link #resume()}. */
+  public void pause() {
+    paused = true;
+  }
+
+  public void resume() {
+    paused = false;
+  }
+
+  public boolean isPaused() {
+    return paused;
+  }
+
+  /**
+   * Caps how many particles all effects together may spawn in one frame. When
+   * effects ask for more, the budget goes to higher priorities first and is
+   * shared by weight within a priority; effects over their share are thinned or
+   * deferred. A deferred emission is spawned in a later frame, before its effect
+   * is updated again, unless it waits longer than {@value #MAX_DEFERRED_FRAMES}
+   * frames and is dropped.
+   */
+  public void setFrameBudget(int particles) {
+    if (particles < 1) {
+      throw new IllegalArgumentException("Frame budget must be positive, got " + particles);
+    }
+    this.frameBudget = particles;
+  }
+
+  public int getFrameBudget() {
+    return frameBudget;
+  }
+
+  /**
+   * @return frames run so far
+   */
+  public long getFrameNumber() {
+    return frameNumber;
+  }
+
+  /**
+   * @return particles spawned so far, after culling and thinning
+   */
+  public long getSpawnedCount() {
+    return spawned;
+  }
+
+  /**
+   * @return particles left out of emissions thinned to fit the frame budget
+   */
+  public long getThinnedCount() {
+    return thinned;
+  }
+
+  /**
+   * @return times an effect's emission was pushed to the next frame because the budget was spent
+   */
+  public long getDeferredCount() {
+    return deferred;
+  }
+
+  /**
+   * @return effect emissions given up after waiting {@value #MAX_DEFERRED_FRAMES} frames for budget
+   */
+  public long getDroppedCount() {
+    return dropped;
+  }
+
+  /**
+   * @return effect emissions skipped because no player was within the effect's view distance
+   */
+  public long getCulledCount() {
+    return culled;
+  }
+
+  /**
+   * @return effects registered and not yet removed; approximate when called off the tick thread
+   */
+  public int getActiveCount() {
+    return active.size() + added.size();
+  }
+
+  private void tick() {
+    Handle pending;
+    while ((pending = added.poll()) != null) {
+      active.add(pending);
+    }
+    if (!paused && !active.isEmpty()) {
+      runFrame();
+    }
+    active.removeIf(handle -> !handle.isActive());
+    synchronized (this) {
+      if (active.isEmpty() && added.isEmpty() && task != null) {
+        task.cancel();
+        task = null;
+      }
+    }
+  }
+
+  private void runFrame() {
+    Frame frame = this.frame;
+    frame.begin(++frameNumber, System.currentTimeMillis(), frameBudget, PlatformPlugin.particleProvider());
+
+    frame.phase = Phase.UPDATE;
+    viewers.clear();
+    int n = active.size();
+    for (int i = 0; i < n; i++) {
+      Handle handle = active.get(i);
+      handle.demand = 0;
+      handle.rank = handle.priority;
+      if (!handle.isRunnable()) {
+        continue;
+      }
+      try {
+        // cull before updating, so effects nobody can see cost no geometry
+        handle.lodStride = stride(handle.effect);
+        if (handle.lodStride == 0) {
+          culled++;
+          // nobody is left to see a deferred emission either
+          handle.pending = false;
+          handle.waited = 0;
+          if (!handle.effect.skip(frame)) {
+            handle.finished = true;
+          }
+          continue;
+        }
+        // a deferred emission is still waiting: updating would overwrite its particles
+        if (!handle.pending && !handle.effect.update(frame)) {
+          handle.finished = true;
+          continue;
+        }
+        handle.demand = (handle.effect.cost() + handle.lodStride - 1) / handle.lodStride;
+      } catch (RuntimeException e) {
+        fail(handle, e);
+      }
+    }
+
+    frame.phase = Phase.EMIT;
+    // serve priority classes from the highest down; each one shares what the classes above left
+    active.sort(BY_PRIORITY);
+    int rotation = cursor++;
+    for (int from = 0; from < n; ) {
+      int to = from + 1;
+      while (to < n && active.get(to).rank == active.get(from).rank) {
+        to++;
+      }
+      share(frame, from, to, rotation);
+      from = to;
+    }
+  }
+
+  /**
+   * Deficit round robin over one priority class. Each effect earns a quantum,
+   * its weighted share of the budget left to the class, and may spend what it
+   * has earned. An effect that has not earned its whole emission is thinned to
+   * fit, or deferred while waiting would let it emit at a reasonable density.
+   */
+  private void share(Frame frame, int from, int to, int rotation) {
+    long weights = 0;
+    for (int i = from; i < to; i++) {
+      Handle handle = active.get(i);
+      if (handle.demand > 0) {
+        weights += handle.weight;
+      } else {
+        // nothing to send: like an empty DRR queue, it keeps no credit
+        handle.deficit = 0;
+      }
+    }
+    if (weights == 0) {
+      return;
+    }
+    int classBudget = frame.remaining;
+    int size = to - from;
+    int start = Math.floorMod(rotation, size);
+    for (int k = 0; k < size; k++) {
+      Handle handle = active.get(from + (start + k) % size);
+      int demand = handle.demand;
+      if (demand <= 0 || !handle.isRunnable()) {
+        continue;
+      }
+      long quantum = Math.max(1, classBudget * (long) handle.weight / weights);
+      // credit beyond one full emission would only let the effect burst later
+      handle.deficit = Math.min(handle.deficit + quantum, Math.max(demand, quantum));
+      int allowance = (int) Math.min(handle.deficit, frame.remaining);
+      if (allowance <= 0) {
+        defer(handle);
+        continue;
+      }
+      int budgetStride = 1;
+      int cost = demand;
+      if (demand > allowance) {
+        budgetStride = (demand + allowance - 1) / allowance;
+        if (budgetStride > MAX_THINNING && handle.deficit < demand) {
+          defer(handle);
+          continue;
+        }
+        cost = (demand + budgetStride - 1) / budgetStride;
+        thinned += demand - cost;
+      }
+      handle.deficit -= cost;
+      frame.remaining -= cost;
+      spawned += cost;
+      frame.stride = handle.lodStride * budgetStride;
+      handle.pending = false;
+      handle.waited = 0;
+      try {
+        handle.effect.emit(frame);
+      } catch (RuntimeException e) {
+        fail(handle, e);
+      }
+    }
+  }
+
+  // The effect is skipped in the next update phase, so its particles are offered again
+  // unchanged, until they have waited too long
+  private void defer(Handle handle) {
+    if (++handle.waited > MAX_DEFERRED_FRAMES) {
+      dropped++;
+      handle.pending = false;
+      handle.waited = 0;
+    } else {
+      deferred++;
+      handle.pending = true;
+    }
+  }
+
+  /**
+   * Level of detail of an effect this frame, from its distance to the nearest player.
+   *
+   * @return the point stride, or 0 if nobody is close enough to see it
+   */
+  private int stride(Effect effect) {
+    ParticleLod lod = effect.lod();
+    PlatformLocation position = effect.position();
+    if (lod == null || lod == ParticleLod.FULL || position == null || position.getWorld() == null) {
+      return 1;
+    }
+    return lod.strideAt(nearestViewerSquared(position));
+  }
+
+  @SuppressWarnings("unchecked")
+  private double nearestViewerSquared(PlatformLocation position) {
+    // each world's player list is fetched once per frame, however the effects interleave
+    List<? extends PlatformPlayer> viewers =
+        this.viewers.computeIfAbsent(position.getWorld(), PlatformWorld::getPlayers);
+    double nearest = Double.POSITIVE_INFINITY;
+    for (int i = 0, n = viewers.size(); i < n; i++) {
+      PlatformLocation viewer = viewers.get(i).getLocation();
+      double dx = viewer.getX() - position.getX();
+      double dy = viewer.getY() - position.getY();
+      double dz = viewer.getZ() - position.getZ();
+      nearest = Math.min(nearest, dx * dx + dy * dy + dz * dz);
+    }
+    return nearest;
+  }
+
+  private void fail(Handle handle, RuntimeException e) {
+    handle.finished = true;
+    LOGGER.severe("Particle effect " + handle.effect + " failed and was removed: " + e);
+  }
+
+  /** The two phases of a frame, in order. */
+  public enum Phase {
+    /**
+     * Effects are culled by viewer distance; the others advance their state and
+     * decide whether they are still alive.
+     */
+    UPDATE,
+    /** Effects spawn their particles, within the frame budget. */
+    EMIT
+  }
+
+  /**
+   * A particle effect driven by a {@link ParticleEngine}. All methods are called
+   * on the engine's scheduler thread.
+   */
+  public interface Effect {
+    /**
+     * Advances the effect to this frame. Not called while the effect's last
+     * emission is deferred, so the particles computed for it are spawned
+     * unchanged in a later frame.
+     *
+     * @return false once the effect is finished; it is then removed without
+     *     emitting again
+     */
+    boolean update(Frame frame);
+
+    /**
+     * Called instead of {@link #update(Frame)} in frames where the effect is
+     * culled because no player is within its view distance. The effect is
+     * neither advanced nor emitted; it only reports whether it is still alive,
+     * so effects that end out of sight are still removed.
+     *
+     * @return false once the effect is finished
+     */
+    default boolean skip(Frame frame) {
+      return true;
+    }
+
+    /**
+     * Particles {@link #emit(Frame)} is about to spawn this frame. Called after
+     * {@link #update(Frame)} and used to decide whether the emission fits the
+     * frame budget.
+     */
+    int cost();
+
+    /** Spawns this frame's particles, through {@link Frame#spawn(PlatformWorld, Vec3Array, ParticleSpec)}. */
+    void emit(Frame frame);
+
+    /**
+     * Where the effect is this frame, used to find its nearest viewer. Called
+     * before {@link #update(Frame)}, once per frame, so it should be cheap and
+     * not depend on the update.
+     *
+     * @return the position, or {@code null} to never cull the effect
+     */
+    default PlatformLocation position() {
+      return null;
+    }
+
+    /**
+     * How the effect is culled and thinned by viewer distance. Called before
+     * {@link #update(Frame)}, like {@link #position()}.
+     */
+    default ParticleLod lod() {
+      return ParticleLod.DEFAULT;
+    }
+  }
+
+  /**
+   * State of the frame being run. One instance is reused for every frame, so
+   * effects must not keep it.
+   */
+  public static final class Frame {
+    private long number;
+    private long timeMillis;
+    private Phase phase;
+    private int remaining;
+    private int stride = 1;
+    private PlatformParticleProvider provider;
+    // every stride-th point of a thinned batch
+    private final Vec3Array thinned = new Vec3Array();
+
+    private Frame() {}
+
+    private void begin(long number, long timeMillis, int budget, PlatformParticleProvider provider) {
+      this.number = number;
+      this.timeMillis = timeMillis;
+      this.remaining = budget;
+      this.provider = provider;
+    }
+
+    /**
+     * Spawns a batch of particles as part of this frame. Effects route their
+     * particles through here so the whole frame reaches the platform in
+     * batches, see {@link PlatformParticleProvider#spawnBatch}.
+     */
+    public void spawn(PlatformWorld world, Vec3Array points, ParticleSpec spec) {
+      spawnThinned(world, stride > 1 ? thin(points, stride) : points, spec);
+    }
+
+    /**
+     * Spawns a batch the effect has already thinned to {@link #getStride()}
+     * itself, as is.
+     */
+    public void spawnThinned(PlatformWorld world, Vec3Array points, ParticleSpec spec) {
+      if (!points.isEmpty()) {
+        provider.spawnBatch(world, points, spec);
+      }
+    }
+
+    private Vec3Array thin(Vec3Array points, int stride) {
+      int n = points.size();
+      thinned.resize((n + stride - 1) / stride);
+      double[] xs = points.xs();
+      double[] ys = points.ys();
+      double[] zs = points.zs();
+      double[] outX = thinned.xs();
+      double[] outY = thinned.ys();
+      double[] outZ = thinned.zs();
+      for (int i = 0, j = 0; i < n; i += stride, j++) {
+        outX[j] = xs[i];
+        outY[j] = ys[i];
+        outZ[j] = zs[i];
+      }
+      return thinned;
+    }
+
+    /** Sequence number of this frame, starting at 1. */
+    public long getNumber() {
+      return number;
+    }
+
+    /** Wall-clock time at the start of this frame; the same for every effect. */
+    public long getTimeMillis() {
+      return timeMillis;
+    }
+
+    public Phase getPhase() {
+      return phase;
+    }
+
+    /**
+     * Level of detail of the effect being emitted: {@link #spawn} keeps every
+     * {@code stride}th point of each batch.
+     */
+    public int getStride() {
+      return stride;
+    }
+
+    /** Particles left in this frame's budget. */
+    public int getRemainingBudget() {
+      return remaining;
+    }
+  }
+
+  /** Controls one registered effect. */
+  public static final class Handle {
+    private final ParticleEngine engine;
+    private final Effect effect;
+    private volatile boolean paused;
+    private volatile boolean cancelled;
+    private volatile int priority;
+    private volatile int weight = 1;
+    // written by the tick thread only
+    private volatile boolean finished;
+    // budget state, tick thread only
+    private long deficit;
+    private int demand;
+    // priority as of this frame, so the sort sees a stable value
+    private int rank;
+    private int lodStride = 1;
+    // the last emission was deferred and has not been spawned yet
+    private boolean pending;
+    // frames the pending emission has waited
+    private int waited;
+
+    private Handle(ParticleEngine engine, Effect effect) {
+      this.engine = engine;
+      this.effect = effect;
+    }
+
+    public ParticleEngine engine() {
+      return engine;
+    }
+
+    public Effect effect() {
+      return effect;
+    }
+
+    /** Skips the effect in every frame until {@link #resume()}. */
+    public void pause() {
+      paused = true;
+    }
+
+    public void resume() {
+      paused = false;
+    }
+
+    public boolean isPaused() {
+      return paused;
+    }
+
+    public int getPriority() {
+      return priority;
+    }
+
+    /** Higher priorities are served first when the frame budget is short. */
+    public void setPriority(int priority) {
+      this.priority = priority;
+    }
+
+    public int getWeight() {
+      return weight;
+    }
+
+    /**
+     * Sets the effect's share of the frame budget relative to other effects of
+     * the same priority.
+     */
+    public void setWeight(int weight) {
+      if (weight < 1) {
+        throw new IllegalArgumentException("Weight must be at least 1, got " + weight);
+      }
+      this.weight = weight;
+    }
+
+    /** Removes the effect before the next frame. */
+    public void cancel() {
+      cancelled = true;
+    }
+
+    /**
+     * @return false once the effect was cancelled or finished by itself
+     */
+    public boolean isActive() {
+      return !cancelled && !finished;
+    }
+
+    private boolean isRunnable() {
+      return !paused && !cancelled && !finished;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities;
+
+import java.util.Arrays;
+
+/**
+ * Viewer-distance culling and level of detail for a particle effect.
+ * <p>
+ * Each frame the {@link ParticleEngine} finds the player nearest to an
+ * effect. Beyond the view distance the effect is not emitted at all; closer
+ * in, every level the viewer is past thins the effect to every Nth point,
+ * which for rings and helices is the same shape at a lower resolution.
+ * </p>
+ * Instances are immutable; the {@code with} methods return copies.
+ *
+ * <pre>
+ * ParticleLod lod = ParticleLod.of(48).withLevel(16, 2).withLevel(32, 4);
+ * new ParticleTaskBuilder().setArrow(arrow).setLod(lod).start();
+ * </pre>
+ */
+public final class ParticleLod {
+  /** Culls beyond 32 blocks, the range clients render particles at; half density past 16, a quarter past 24. */
+  public static final ParticleLod DEFAULT = of(32).withLevel(16, 2).withLevel(24, 4);
+
+  /** Never culls or thins the effect. */
+  public static final ParticleLod FULL = of(Double.POSITIVE_INFINITY);
+
+  private final double viewDistance;
+  private final double viewDistanceSquared;
+  // ascending distances, squared, and the stride used past each
+  private final double[] levelsSquared;
+  private final int[] strides;
+
+  private ParticleLod(double viewDistance, double[] levelsSquared, int[] strides) {
+    this.viewDistance = viewDistance;
+    this.viewDistanceSquared = viewDistance * viewDistance;
+    this.levelsSquared = levelsSquared;
+    this.strides = strides;
+  }
+
+  /**
+   * @param viewDistance blocks from the nearest player beyond which the effect is not emitted
+   */
+  public static ParticleLod of(double viewDistance) {
+    if (!(viewDistance > 0)) {
+      throw new IllegalArgumentException("View distance must be positive, got " + viewDistance);
+    }
+    return new ParticleLod(viewDistance, new double[0], new int[0]);
+  }
+
+  /**
+   * Returns a copy that emits only every {@code stride}th point while the
+   * nearest viewer is further than {@code distance} blocks away.
+   */
+  public ParticleLod withLevel(double distance, int stride) {
+    if (!(distance >= 0) || stride < 1) {
+      throw new IllegalArgumentException(
+          "Level needs a distance >= 0 and a stride >= 1, got " + distance + ", " + stride);
+    }
+    double squared = distance * distance;
+    int at = 0;
+    while (at < levelsSquared.length && levelsSquared[at] < squared) {
+      at++;
+    }
+    boolean replace = at < levelsSquared.length && levelsSquared[at] == squared;
+    int length = replace ? levelsSquared.length : levelsSquared.length + 1;
+    double[] levels = new double[length];
+    int[] newStrides = new int[length];
+    System.arraycopy(levelsSquared, 0, levels, 0, at);
+    System.arraycopy(strides, 0, newStrides, 0, at);
+    levels[at] = squared;
+    newStrides[at] = stride;
+    int from = replace ? at + 1 : at;
+    System.arraycopy(levelsSquared, from, levels, at + 1, levelsSquared.length - from);
+    System.arraycopy(strides, from, newStrides, at + 1, strides.length - from);
+    return new ParticleLod(viewDistance, levels, newStrides);
+  }
+
+  /** Returns a copy with another view distance and the same levels. */
+  public ParticleLod withViewDistance(double viewDistance) {
+    return new ParticleLod(of(viewDistance).viewDistance, levelsSquared, strides);
+  }
+
+  public double getViewDistance() {
+    return viewDistance;
+  }
+
+  /**
+   * @param distanceSquared squared distance to the nearest viewer, or
+   *     {@link Double#POSITIVE_INFINITY} if there is none
+   * @return the point stride to emit with, or 0 if the effect is culled
+   */
+  public int strideAt(double distanceSquared) {
+    if (distanceSquared > viewDistanceSquared) {
+      return 0;
+    }
+    int stride = 1;
+    for (int i = 0; i < levelsSquared.length && distanceSquared > levelsSquared[i]; i++) {
+      stride = strides[i];
+    }
+    return stride;
+  }
+
+  @Override
+  public String toString() {
+    double[] levels = new double[levelsSquared.length];
+    for (int i = 0; i < levels.length; i++) {
+      levels[i] = Math.sqrt(levelsSquared[i]);
+    }
+    return "ParticleLod{viewDistance="
+        + viewDistance
+        + ", levels="
+        + Arrays.toString(levels)
+        + ", strides="
+        + Arrays.toString(strides)
+        + '}';
+  }
+}
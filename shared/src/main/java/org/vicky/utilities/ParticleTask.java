@@ -1,17 +1,23 @@
 /* Licensed under Apache-2.0 2024. */
 package org.vicky.utilities;
 
+import java.util.Objects;
+import java.util.SplittableRandom;
+
 import org.vicky.platform.IColor;
-import org.vicky.platform.PlatformPlugin;
+import org.vicky.platform.ParticleSpec;
 import org.vicky.platform.defaults.CommonParticle;
 import org.vicky.platform.entity.PlatformEntity;
 import org.vicky.platform.entity.PlatformParticle;
 import org.vicky.platform.utils.Vec3;
+import org.vicky.platform.utils.Vec3Array;
 import org.vicky.platform.world.PlatformLocation;
+import org.vicky.platform.world.PlatformWorld;
 
 /**
- * ParticleTask is a {@link Runnable} that continuously spawns particles around an arrow entity,
- * creating various visual effects such as helices, waves, bursts, and more.
+ * ParticleTask is a {@link ParticleEngine.Effect} that spawns particles around an arrow entity every
+ * frame, creating various visual effects such as helices, waves, bursts, and more. Start it with
+ * {@link ParticleTaskBuilder#start()} or {@link ParticleEngine#register(ParticleEngine.Effect)}.
  * <p>
  * The task calculates positions for two groups of particles (head and middle) based on several parameters,
  * including radii, particle counts, speed, and offsets. The particles are rotated around the arrow's position
@@ -24,8 +30,7 @@ import org.vicky.platform.world.PlatformLocation;
  *
  * @author
  */
-public class ParticleTask implements Runnable {
-  private volatile boolean running = true;
+public class ParticleTask implements ParticleEngine.Effect {
   private final PlatformEntity arrow;
   private final double radiusH;
   private final double radiusM;
@@ -60,6 +65,32 @@ public class ParticleTask implements Runnable {
   private final float yaw;
   private final float pitch;
 
+  private ShapeTemplate headShape;
+  private ShapeTemplate middleShape;
+  // baked frames of the shapes, or null to place them live
+  private BakedAnimation headAnimation;
+  private BakedAnimation middleAnimation;
+  private boolean fastTrig;
+  private int bakedFrames;
+  // scatter of random shapes; owned by the engine thread
+  private SplittableRandom random = new SplittableRandom();
+  // past arrow positions drawn by the middle group in trail mode, or null
+  private ParticleTrail trail;
+  private long trailLifetimeMillis;
+  private double trailSpacing;
+  // trail points due this frame, counted in update() and collected in emit()
+  private int trailDue;
+
+  // current frame, computed in update() and spawned in emit()
+  private PlatformLocation loc;
+  private final Vec3Array head;
+  private final Vec3Array middle;
+  private final QuaternionRotation rotation = new QuaternionRotation();
+  private final ParticleSpec headSpec;
+  private final ParticleSpec middleSpec;
+  private ParticleLod lod = ParticleLod.DEFAULT;
+  private volatile boolean stopped;
+
   /**
    * Constructs a new ParticleTask.
    *
@@ -166,6 +197,54 @@ public class ParticleTask implements Runnable {
     this.effectTypeM = effectTypeM;
     this.yaw = yaw;
     this.pitch = pitch;
+
+    resolveShapes();
+    this.head = new Vec3Array(headShape.size());
+    this.middle = new Vec3Array(middleShape.size());
+
+    this.headSpec = spec(particleH, spreadXH, spreadYH, spreadZH, speedH, sizeH);
+    this.middleSpec = spec(particleM, spreadXM, spreadYM, spreadZM, speedM, sizeM);
+  }
+
+  // Redstone takes the head color and color transitions the transition colors, for both groups
+  private ParticleSpec spec(
+      PlatformParticle particle, double spreadX, double spreadY, double spreadZ, float speed, float size) {
+    if (particle == CommonParticle.REDSTONE) {
+      return ParticleSpec.colored(particle, 1, spreadX, spreadY, spreadZ, speed, headColor, size);
+    } else if (particle == CommonParticle.DUST_COLOR_TRANSITION) {
+      return ParticleSpec.transition(
+          particle, 1, spreadX, spreadY, spreadZ, speed, transitionColorStart, transitionColorEnd, size);
+    }
+    return ParticleSpec.basic(particle, 1, spreadX, spreadY, spreadZ, speed, size);
+  }
+
+  private void resolveShapes() {
+    this.headShape =
+        ShapeTemplate.of(
+            effectTypeH,
+            radiusH,
+            heightStep,
+            headCount,
+            frequency(effectTypeH),
+            spacingMode,
+            circleNumber,
+            fastTrig);
+    this.middleShape =
+        ShapeTemplate.of(
+            effectTypeM,
+            radiusM,
+            heightStep,
+            middleCount,
+            frequency(effectTypeM),
+            spacingMode,
+            circleNumber,
+            fastTrig);
+    this.headAnimation = bakedFrames > 0 ? BakedAnimation.of(headShape, bakedFrames) : null;
+    this.middleAnimation = bakedFrames > 0 ? BakedAnimation.of(middleShape, bakedFrames) : null;
+  }
+
+  private double frequency(ParticleTypeEffect.ParticleTypeEffects effectType) {
+    return effectType == ParticleTypeEffect.ParticleTypeEffects.PULSE_WAVES ? pFreq : rFreq;
   }
 
   // The following quaternion rotation methods have been commented out.
@@ -239,292 +318,224 @@ public class ParticleTask implements Runnable {
   */
 
   /**
-   * The main task method that is executed repeatedly.
+   * Computes this frame's positions for both head and middle particles.
    * <p>
    * This method checks if the arrow is dead, calculates the elapsed time since the task started,
-   * determines the current animation angle, and spawns particles based on the configured effect types
-   * for both head and middle particles. The particles are rotated using the {@link #rotateAroundArrow(PlatformLocation, PlatformLocation, Vec3)} method.
+   * determines the current animation angle, and generates positions based on the configured effect
+   * types for head and middle particles from their {@link ShapeTemplate}s.
    * </p>
+   *
+   * @return false once the arrow is dead or the task was stopped
    */
   @Override
-  public void run() {
-    while (running) {
-      if (arrow.isDead()) {
-        running = false;
-        return;
-      }
-
-      PlatformLocation loc = arrow.getLocation();
-      long currentTime = System.currentTimeMillis();
-      long elapsedTime = currentTime - startTime; // Calculate elapsed time
-      double angle = (elapsedTime / 10.0);
-
-      // Generate particle positions based on effect type for head and middle groups
-      PlatformLocation[] headPositions;
-      PlatformLocation[] middlePositions;
-
-      // Determine head particle positions based on the head effect type
-      switch (effectTypeH) {
-        case LINE:
-          headPositions = ParticleTypeEffect.LINE(loc.clone(), radiusH, headCount);
-          break;
-        case HELIX:
-          headPositions =
-                  ParticleTypeEffect.HELIX(loc.clone(), radiusH, heightStep, angle, headCount);
-          break;
-        case WAVY_LINE:
-          headPositions =
-                  ParticleTypeEffect.WAVY_LINE(loc.clone(), radiusH, heightStep, angle, headCount);
-          break;
-        case BURST_SPIRAL:
-          headPositions =
-                  ParticleTypeEffect.BURST_SPIRAL(loc.clone(), radiusH, heightStep, angle, headCount);
-          break;
-        case CONVERGING_LINES:
-          headPositions =
-                  ParticleTypeEffect.CONVERGING_LINES(loc.clone(), radiusH, heightStep, angle, headCount);
-          break;
-        case RIPPLES:
-          headPositions =
-                  ParticleTypeEffect.RIPPLES(
-                          loc.clone(), radiusH, angleStep, angle, headCount, spacingMode, circleNumber);
-          break;
-        case FALLING_LEAVES:
-          headPositions =
-                  ParticleTypeEffect.FALLING_LEAVES(loc.clone(), radiusH, heightStep, angle, headCount);
-          break;
-        case EXPLODING_STARS:
-          headPositions =
-                  ParticleTypeEffect.EXPLODING_STARS(loc.clone(), radiusH, heightStep, angle, headCount);
-          break;
-        case PULSE_WAVES:
-          headPositions =
-                  ParticleTypeEffect.PULSE_WAVES(
-                          loc.clone(), radiusH, heightStep, angle, headCount, pFreq);
-          break;
-        case OSCILLATING_RINGS:
-          headPositions =
-                  ParticleTypeEffect.OSCILLATING_RINGS(
-                          loc.clone(), radiusH, heightStep, angle, headCount, rFreq);
-          break;
-        default:
-          throw new IllegalStateException("Unexpected effect type: " + effectTypeH);
-      }
+  public boolean update(ParticleEngine.Frame frame) {
+    if (stopped || arrow.isDead()) {
+      return false;
+    }
 
-      // Determine middle particle positions based on the middle effect type
-      switch (effectTypeM) {
-        case LINE:
-          middlePositions =
-                  ParticleTypeEffect.LINE(
-                          (PlatformLocation) loc.clone().subtract(arrow.getVelocity().normalize().multiply(lagBehind)),
-                          radiusM,
-                          middleCount);
-          break;
-        case HELIX:
-          middlePositions =
-                  ParticleTypeEffect.HELIX(
-                          (PlatformLocation) loc.clone().subtract(arrow.getVelocity().normalize().multiply(lagBehind)),
-                          radiusM,
-                          heightStep,
-                          angle,
-                          middleCount);
-          break;
-        case WAVY_LINE:
-          middlePositions =
-                  ParticleTypeEffect.WAVY_LINE(
-                          (PlatformLocation) loc.clone().subtract(arrow.getVelocity().normalize().multiply(lagBehind)),
-                          radiusM,
-                          heightStep,
-                          angle,
-                          middleCount);
-          break;
-        case BURST_SPIRAL:
-          middlePositions =
-                  ParticleTypeEffect.BURST_SPIRAL(
-                          (PlatformLocation) loc.clone().subtract(arrow.getVelocity().normalize().multiply(lagBehind)),
-                          radiusM,
-                          heightStep,
-                          angle,
-                          middleCount);
-          break;
-        case CONVERGING_LINES:
-          middlePositions =
-                  ParticleTypeEffect.CONVERGING_LINES(
-                          (PlatformLocation) loc.clone().subtract(arrow.getVelocity().normalize().multiply(lagBehind)),
-                          radiusM,
-                          heightStep,
-                          angle,
-                          middleCount);
-          break;
-        case RIPPLES:
-          middlePositions =
-                  ParticleTypeEffect.RIPPLES(
-                          (PlatformLocation) loc.clone().subtract(arrow.getVelocity().normalize().multiply(lagBehind)),
-                          radiusM,
-                          angleStep,
-                          angle,
-                          middleCount,
-                          spacingMode,
-                          circleNumber);
-          break;
-        case FALLING_LEAVES:
-          middlePositions =
-                  ParticleTypeEffect.FALLING_LEAVES(
-                          (PlatformLocation) loc.clone().subtract(arrow.getVelocity().normalize().multiply(lagBehind)),
-                          radiusM,
-                          heightStep,
-                          angle,
-                          middleCount);
-          break;
-        case EXPLODING_STARS:
-          middlePositions =
-                  ParticleTypeEffect.EXPLODING_STARS(
-                          (PlatformLocation) loc.clone().subtract(arrow.getVelocity().normalize().multiply(lagBehind)),
-                          radiusM,
-                          heightStep,
-                          angle,
-                          middleCount);
-          break;
-        case PULSE_WAVES:
-          middlePositions =
-                  ParticleTypeEffect.PULSE_WAVES(
-                          loc.clone().subtract(arrow.getVelocity().normalize().multiply(lagBehind)),
-                          radiusM,
-                          heightStep,
-                          angle,
-                          middleCount,
-                          pFreq);
-          break;
-        case OSCILLATING_RINGS:
-          middlePositions =
-                  ParticleTypeEffect.OSCILLATING_RINGS(
-                          loc.clone().subtract(arrow.getVelocity().normalize().multiply(lagBehind)),
-                          radiusM,
-                          heightStep,
-                          angle,
-                          middleCount,
-                          rFreq);
-          break;
-        default:
-          throw new IllegalStateException("Unexpected effect type: " + effectTypeM);
-      }
+    PlatformLocation loc = arrow.getLocation();
+    long currentTime = frame.getTimeMillis();
+    long elapsedTime = currentTime - startTime; // Calculate elapsed time
+    double angle = (elapsedTime / 10.0);
 
-      PlatformLocation[] rotheadPositions = headPositions;
-      PlatformLocation[] rotmidPositions = middlePositions;
-
-      // Adjust locations for particles for head and middle effects
-      PlatformLocation redstoneLocation = loc.clone();
-      var norm = arrow.getVelocity().normalize().multiply(lagBehind);
-      PlatformLocation dustLocation =
-              loc.clone().subtract(norm.x, norm.y, norm.z);
-
-      // Spawn head particles based on the particle type
-      if (this.particleH == CommonParticle.REDSTONE) {
-        for (PlatformLocation pos : rotheadPositions) {
-          PlatformLocation rotatedPos = rotateAroundArrow(pos, loc, arrow.getVelocity());
-          PlatformPlugin.particleProvider().spawnColored(
-                  particleH,
-                  rotatedPos,
-                  1,
-                  spreadXH,
-                  spreadYH,
-                  spreadZH,
-                  speedH,
-                  headColor,
-                  sizeH);
-        }
-      } else if (particleH == CommonParticle.DUST_COLOR_TRANSITION) {
-        for (PlatformLocation pos : rotheadPositions) {
-          PlatformLocation rotatedPos = rotateAroundArrow(pos, loc, arrow.getVelocity());
-          PlatformPlugin.particleProvider().spawnTransition(
-                  particleH,
-                  rotatedPos,
-                  1,
-                  spreadXH,
-                  spreadYH,
-                  spreadZH,
-                  speedH,
-                  transitionColorStart,
-                  transitionColorEnd,
-                  sizeH);
-        }
-      } else {
-        for (PlatformLocation pos : rotheadPositions) {
-          PlatformLocation rotatedPos = rotateAroundArrow(pos, loc, arrow.getVelocity());
-          PlatformPlugin.particleProvider()
-                  .spawnBasic(particleH, rotatedPos, 1, spreadXH, spreadYH, spreadZH, speedH, sizeH);
+    // Orient both groups with the arrow, using one matrix for the frame; large
+    // shapes are placed and rotated in parallel chunks
+    RotationMatrix orientation = rotation.matrix(loc.getYaw(), loc.getPitch());
+    if (headAnimation != null) {
+      headAnimation.place(angle, loc.getX(), loc.getY(), loc.getZ(), head);
+      ParallelShapes.rotate(orientation, head, loc.getX(), loc.getY(), loc.getZ());
+    } else {
+      ParallelShapes.placeAndRotate(
+          headShape,
+          angle,
+          loc.getX(),
+          loc.getY(),
+          loc.getZ(),
+          head,
+          random,
+          orientation,
+          loc.getX(),
+          loc.getY(),
+          loc.getZ());
+    }
+    if (trail != null) {
+      // the middle group draws the arrow's path instead of its shape; it is collected in emit(),
+      // which marks segments as emitted, once the frame is known to spawn them and at what stride
+      trail.push(loc.getX(), loc.getY(), loc.getZ(), loc.getYaw(), loc.getPitch(), currentTime);
+      trailDue = trail.count(currentTime, trailLifetimeMillis, trailSpacing);
+    } else {
+      // the middle group's shape trails the arrow by lagBehind along its direction of flight
+      double middleX = loc.getX();
+      double middleY = loc.getY();
+      double middleZ = loc.getZ();
+      if (lagBehind != 0) {
+        Vec3 velocity = arrow.getVelocity();
+        double speed =
+            Math.sqrt(velocity.x * velocity.x + velocity.y * velocity.y + velocity.z * velocity.z);
+        if (speed != 0) {
+          double scale = lagBehind / speed;
+          middleX -= velocity.x * scale;
+          middleY -= velocity.y * scale;
+          middleZ -= velocity.z * scale;
         }
       }
+      placeMiddle(angle, middleX, middleY, middleZ, orientation, loc);
+    }
 
-      // Spawn middle particles based on the particle type
-      if (particleM == CommonParticle.DUST_COLOR_TRANSITION) {
-          for (PlatformLocation pos : rotmidPositions) {
-          PlatformLocation rotatedPos = rotateAroundArrow(pos, loc, arrow.getVelocity());
-          PlatformPlugin.particleProvider().spawnTransition(
-                          particleM,
-                          rotatedPos,
-                          1,
-                          spreadXM,
-                          spreadYM,
-                          spreadZM,
-                          speedM,
-                          transitionColorStart,
-                          transitionColorEnd,
-                          sizeM);
-        }
-      } else if (particleM == CommonParticle.REDSTONE) {
-        for (PlatformLocation pos : rotmidPositions) {
-          PlatformLocation rotatedPos = rotateAroundArrow(pos, loc, arrow.getVelocity());
-          PlatformPlugin.particleProvider().spawnColored(
-                  particleM,
-                  rotatedPos,
-                  1,
-                  spreadXM,
-                  spreadYM,
-                  spreadZM,
-                  speedM,
-                  headColor,
-                  sizeM
-          );
-        }
-      } else {
-        for (org.vicky.platform.world.PlatformLocation pos : rotmidPositions) {
-          PlatformLocation BParticleLocation =
-                  (PlatformLocation) loc.clone().subtract(arrow.getVelocity().normalize().multiply(lagBehind));
-          PlatformLocation rotatedPos = rotateAroundArrow(pos, loc, arrow.getVelocity());
-          PlatformPlugin.particleProvider().spawnBasic(
-                  particleM,
-                  rotatedPos,
-                  1,
-                  spreadXM,
-                  spreadYM,
-                  spreadZM,
-                  speedM,
-                  sizeM
-          );
-        }
-      }
+    this.loc = loc;
+    return true;
+  }
+
+  private void placeMiddle(
+      double angle,
+      double x,
+      double y,
+      double z,
+      RotationMatrix orientation,
+      PlatformLocation loc) {
+    if (middleAnimation != null) {
+      middleAnimation.place(angle, x, y, z, middle);
+      ParallelShapes.rotate(orientation, middle, loc.getX(), loc.getY(), loc.getZ());
+    } else {
+      ParallelShapes.placeAndRotate(
+          middleShape,
+          angle,
+          x,
+          y,
+          z,
+          middle,
+          random,
+          orientation,
+          loc.getX(),
+          loc.getY(),
+          loc.getZ());
     }
   }
 
   /**
-   * Rotates a particle location around the arrow's location.
-   * <p>
-   * This method computes a new location by taking the particle's current location in Quaternion,
-   * calculating its vector relative to the arrow's location, applying rotations based on the
-   * arrow's yaw and pitch, and returning the new location relative to the arrow.
-   * </p>
+   * Out of sight the shapes are not placed, but the trail keeps recording the arrow's path so it
+   * is whole again once a player comes close.
+   *
+   * @return false once the arrow is dead or the task was stopped
+   */
+  @Override
+  public boolean skip(ParticleEngine.Frame frame) {
+    if (stopped || arrow.isDead()) {
+      return false;
+    }
+    if (trail != null) {
+      PlatformLocation loc = arrow.getLocation();
+      trail.push(loc.getX(), loc.getY(), loc.getZ(), loc.getYaw(), loc.getPitch(), frame.getTimeMillis());
+    }
+    return true;
+  }
+
+  @Override
+  public int cost() {
+    return head.size() + (trail != null ? trailDue : middle.size());
+  }
+
+  /**
+   * Spawns the positions computed and rotated by {@link #update(ParticleEngine.Frame)}, one batch
+   * per particle group. In trail mode the middle group is collected here, thinned to the frame's
+   * stride segment by segment.
+   */
+  @Override
+  public void emit(ParticleEngine.Frame frame) {
+    PlatformWorld world = loc.getWorld();
+    frame.spawn(world, head, headSpec);
+    if (trail != null) {
+      middle.clear();
+      trail.collect(
+          frame.getTimeMillis(), trailLifetimeMillis, trailSpacing, frame.getStride(), middle);
+      frame.spawnThinned(world, middle, middleSpec);
+    } else {
+      frame.spawn(world, middle, middleSpec);
+    }
+  }
+
+  @Override
+  public PlatformLocation position() {
+    return arrow.getLocation();
+  }
+
+  @Override
+  public ParticleLod lod() {
+    return lod;
+  }
+
+  /**
+   * Sets the task's culling and level of detail. Call before the task is started.
+   *
+   * @return this task
+   */
+  public ParticleTask setLod(ParticleLod lod) {
+    this.lod = Objects.requireNonNull(lod, "lod");
+    return this;
+  }
+
+  /**
+   * Computes the shapes with the {@link org.vicky.platform.utils.FastTrig} sine table instead of
+   * {@link Math#sin(double)}. Call before the task is started.
+   *
+   * @return this task
+   */
+  public ParticleTask setFastTrig(boolean fastTrig) {
+    this.fastTrig = fastTrig;
+    resolveShapes();
+    return this;
+  }
+
+  /**
+   * Plays periodic shapes back from a shared table of pre-computed frames instead of placing them
+   * every frame. Shapes that do not repeat are still placed live. Call before the task is started.
    *
-   * @param particleLoc the original location of the particle
-   * @param arrowLoc    the location of the arrow
-   * @param direction   the arrow's velocity vector (used to derive rotation)
-   * @return a new PlatformLocation that is the rotated position of the particle relative to the arrow
+   * @param frames frames baked per animation period, or 0 to place the shapes live
+   * @return this task
+   * @see BakedAnimation
    */
-  private PlatformLocation rotateAroundArrow(PlatformLocation particleLoc, PlatformLocation arrowLoc, Vec3 direction) {
-    return new QuaternionRotation().rotateAroundArrow(particleLoc, arrowLoc, direction);
+  public ParticleTask setBakedFrames(int frames) {
+    this.bakedFrames = Math.max(0, frames);
+    resolveShapes();
+    return this;
+  }
+
+  /**
+   * Seeds the task's random source, so random shapes such as EXPLODING_STARS scatter the same way
+   * on every run. Unseeded tasks get an independent random seed. Call before the task is started.
+   *
+   * @return this task
+   */
+  public ParticleTask setSeed(long seed) {
+    this.random = new SplittableRandom(seed);
+    return this;
+  }
+
+  /**
+   * Turns the middle group into a trail along the arrow's recent path. Each frame the middle
+   * particles are spawned along the newest stretch of the path and along older stretches whose
+   * particles have faded on the client, rather than as the middle shape. Call before the task is
+   * started.
+   *
+   * @param length         frames of path kept; older stretches fade out, 0 turns the trail off
+   * @param spacing        blocks between trail particles
+   * @param lifetimeMillis how long a spawned particle stays visible, after which its stretch is
+   *                       spawned again
+   * @return this task
+   * @see ParticleTrail
+   */
+  public ParticleTask setTrail(int length, double spacing, long lifetimeMillis) {
+    if (length > 0 && !(spacing > 0)) {
+      throw new IllegalArgumentException("Trail spacing must be positive, got " + spacing);
+    }
+    this.trail = length > 0 ? new ParticleTrail(Math.max(2, length)) : null;
+    this.trailSpacing = spacing;
+    this.trailLifetimeMillis = Math.max(0, lifetimeMillis);
+    return this;
   }
 
+  /** Ends the task; the engine removes it on its next frame. */
   public void stop() {
-    running = false;
+    stopped = true;
   }
 }
@@ -1,6 +1,8 @@
 /* Licensed under Apache-2.0 2024. */
 package org.vicky.utilities;
 
+import java.util.Objects;
+
 import org.vicky.platform.IColor;
 import org.vicky.platform.defaults.CommonParticle;
 import org.vicky.platform.defaults.VanillaColor;
@@ -40,9 +42,19 @@ public class ParticleTaskBuilder {
   private double pFreq = 0.2;
   private double angleStep = 5.0;
   private ParticleTypeEffect.SpacingMode spacingMode = ParticleTypeEffect.SpacingMode.LINEAR;
+  private ParticleLod lod = ParticleLod.DEFAULT;
+  private int priority = 0;
+  private int weight = 1;
+  private boolean fastTrig = false;
+  private int bakedFrames = 0;
+  private Long seed;
+  private int trailLength = 0;
+  private double trailSpacing = 0.25;
+  private long trailLifetimeMillis = 1000;
   private int circleNumber = 20;
-  private float yaw = arrow.getYaw();
-  private float pitch = arrow.getPitch();
+  // NaN: take the arrow's orientation when the task is built
+  private float yaw = Float.NaN;
+  private float pitch = Float.NaN;
 
   public ParticleTaskBuilder setStartTime(long startTime) {
     this.startTime = startTime;
@@ -209,40 +221,151 @@ public class ParticleTaskBuilder {
     return this;
   }
 
+  /**
+   * Sets how the effect is culled and thinned by the distance to the nearest player. Defaults to
+   * {@link ParticleLod#DEFAULT}; use {@link ParticleLod#FULL} to always render at full density.
+   */
+  public ParticleTaskBuilder setLod(ParticleLod lod) {
+    this.lod = Objects.requireNonNull(lod, "lod");
+    return this;
+  }
+
+  /**
+   * Sets the effect's priority for the engine's frame budget; higher priorities are served first.
+   */
+  public ParticleTaskBuilder setPriority(int priority) {
+    this.priority = priority;
+    return this;
+  }
+
+  /**
+   * Sets the effect's share of the frame budget relative to effects of the same priority.
+   */
+  public ParticleTaskBuilder setWeight(int weight) {
+    if (weight < 1) {
+      throw new IllegalArgumentException("Weight must be at least 1, got " + weight);
+    }
+    this.weight = weight;
+    return this;
+  }
+
+  /**
+   * Computes the effect's shapes with a sine table, trading at most 3e-7 of the radius in precision
+   * for speed. Off by default.
+   */
+  public ParticleTaskBuilder setFastTrig(boolean fastTrig) {
+    this.fastTrig = fastTrig;
+    return this;
+  }
+
+  /**
+   * Pre-computes periodic shapes (waves, rings, helices) at this many frames per period and plays
+   * them back from a shared table. 0, the default, places the shapes live every frame.
+   *
+   * @see BakedAnimation
+   */
+  public ParticleTaskBuilder setBakedFrames(int bakedFrames) {
+    this.bakedFrames = bakedFrames;
+    return this;
+  }
+
+  /**
+   * Seeds the effect's random source so random shapes scatter the same way on every run. Without a
+   * seed every task draws an independent one.
+   */
+  public ParticleTaskBuilder setSeed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /**
+   * Draws the middle group as a trail along the arrow's last {@code length} frames of path instead
+   * of as a shape, spawning only the newest stretch and the stretches whose particles have faded.
+   * 0, the default, keeps the middle shape.
+   *
+   * @see ParticleTrail
+   */
+  public ParticleTaskBuilder setTrail(int length) {
+    this.trailLength = length;
+    return this;
+  }
+
+  /** Sets the blocks between trail particles. Defaults to 0.25. */
+  public ParticleTaskBuilder setTrailSpacing(double trailSpacing) {
+    this.trailSpacing = trailSpacing;
+    return this;
+  }
+
+  /**
+   * Sets how long clients show a trail particle, after which its stretch of trail is spawned
+   * again. Defaults to one second.
+   */
+  public ParticleTaskBuilder setTrailLifetimeMillis(long trailLifetimeMillis) {
+    this.trailLifetimeMillis = trailLifetimeMillis;
+    return this;
+  }
+
+  /**
+   * Builds the task and starts it on the shared {@link ParticleEngine}.
+   *
+   * @return the handle that pauses or cancels the effect
+   */
+  public ParticleEngine.Handle start() {
+    return start(ParticleEngine.shared());
+  }
+
+  /**
+   * Builds the task and starts it on the given engine.
+   *
+   * @return the handle that pauses or cancels the effect
+   */
+  public ParticleEngine.Handle start(ParticleEngine engine) {
+    return engine.register(build(), priority, weight);
+  }
+
   public ParticleTask build() {
-    return new ParticleTask(
-        startTime,
-        arrow,
-        radiusH,
-        radiusM,
-        heightStep,
-        headColor,
-        transitionColorStart,
-        transitionColorEnd,
-        headCount,
-        middleCount,
-        spreadXH,
-        spreadYH,
-        spreadZH,
-        spreadXM,
-        spreadYM,
-        spreadZM,
-        speedH,
-        speedM,
-        lagBehind,
-        backwardVelocity,
-        sizeH,
-        sizeM,
-        particleH,
-        particleM,
-        effectTypeH,
-        effectTypeM,
-        rFreq,
-        pFreq,
-        angleStep,
-        spacingMode,
-        circleNumber,
-        yaw,
-        pitch);
+    ParticleTask task =
+        new ParticleTask(
+            startTime,
+            arrow,
+            radiusH,
+            radiusM,
+            heightStep,
+            headColor,
+            transitionColorStart,
+            transitionColorEnd,
+            headCount,
+            middleCount,
+            spreadXH,
+            spreadYH,
+            spreadZH,
+            spreadXM,
+            spreadYM,
+            spreadZM,
+            speedH,
+            speedM,
+            lagBehind,
+            backwardVelocity,
+            sizeH,
+            sizeM,
+            particleH,
+            particleM,
+            effectTypeH,
+            effectTypeM,
+            rFreq,
+            pFreq,
+            angleStep,
+            spacingMode,
+            circleNumber,
+            Float.isNaN(yaw) ? arrow.getYaw() : yaw,
+            Float.isNaN(pitch) ? arrow.getPitch() : pitch)
+            .setLod(lod)
+            .setFastTrig(fastTrig)
+            .setBakedFrames(bakedFrames)
+            .setTrail(trailLength, trailSpacing, trailLifetimeMillis);
+    if (seed != null) {
+      task.setSeed(seed);
+    }
+    return task;
   }
 }
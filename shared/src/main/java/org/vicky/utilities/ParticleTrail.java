@@ -0,0 +1,208 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities;
+
+import org.vicky.platform.utils.Vec3Array;
+
+/**
+ * The recent path of a moving emitter, as a fixed-capacity ring of samples.
+ * <p>
+ * Each frame the emitter {@link #push pushes} its position and orientation;
+ * once the ring is full the oldest sample is overwritten, so the trail is as
+ * long as the last {@link #capacity()} frames and never allocates. Samples are
+ * kept in parallel primitive arrays and addressed by age, 0 being the newest.
+ * </p>
+ * A sample's segment runs from the next older sample up to it.
+ * {@link #collect} fills a {@link Vec3Array} with points along the newest
+ * segment and along those older segments whose particles have decayed on the
+ * client, so a fading trail re-emits only its decayed tail instead of
+ * respawning the whole path every frame. Collecting marks the segments as
+ * emitted, so call it only for particles that are spawned right away;
+ * {@link #count} tells how many points are due without marking anything. Once
+ * a sample leaves the ring its segment is no longer refreshed and fades out
+ * with its last particles.
+ */
+public final class ParticleTrail {
+  // points emitted along one segment at most, however fast the emitter moved
+  private static final int MAX_SEGMENT_POINTS = 64;
+
+  private final double[] x;
+  private final double[] y;
+  private final double[] z;
+  private final float[] yaw;
+  private final float[] pitch;
+  private final long[] time;
+  // when each sample's segment was last emitted, and at which stride
+  private final long[] emitted;
+  private final int[] emittedStride;
+  private int newest = -1;
+  private int size;
+
+  /**
+   * @param capacity the number of past samples kept, at least 2 for one segment
+   */
+  public ParticleTrail(int capacity) {
+    if (capacity < 2) {
+      throw new IllegalArgumentException("Capacity must be at least 2, got " + capacity);
+    }
+    this.x = new double[capacity];
+    this.y = new double[capacity];
+    this.z = new double[capacity];
+    this.yaw = new float[capacity];
+    this.pitch = new float[capacity];
+    this.time = new long[capacity];
+    this.emitted = new long[capacity];
+    this.emittedStride = new int[capacity];
+  }
+
+  public int capacity() {
+    return x.length;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Forgets every sample. */
+  public void clear() {
+    newest = -1;
+    size = 0;
+  }
+
+  /**
+   * Records the emitter's current state as the newest sample, overwriting the
+   * oldest once the trail is full.
+   */
+  public void push(double px, double py, double pz, float yaw, float pitch, long timeMillis) {
+    newest = (newest + 1) % x.length;
+    x[newest] = px;
+    y[newest] = py;
+    z[newest] = pz;
+    this.yaw[newest] = yaw;
+    this.pitch[newest] = pitch;
+    time[newest] = timeMillis;
+    emitted[newest] = Long.MIN_VALUE;
+    if (size < x.length) {
+      size++;
+    }
+  }
+
+  public double x(int age) {
+    return x[index(age)];
+  }
+
+  public double y(int age) {
+    return y[index(age)];
+  }
+
+  public double z(int age) {
+    return z[index(age)];
+  }
+
+  public float yaw(int age) {
+    return yaw[index(age)];
+  }
+
+  public float pitch(int age) {
+    return pitch[index(age)];
+  }
+
+  public long timeMillis(int age) {
+    return time[index(age)];
+  }
+
+  /**
+   * Counts the points {@link #collect} would append at stride 1, without marking
+   * anything as emitted.
+   *
+   * @param nowMillis      the current frame time
+   * @param lifetimeMillis how long clients show a spawned particle
+   * @param spacing        blocks between points along a segment
+   */
+  public int count(long nowMillis, long lifetimeMillis, double spacing) {
+    int count = 0;
+    for (int age = 0; age < size - 1; age++) {
+      int i = index(age);
+      if (due(i, nowMillis, lifetimeMillis, 1)) {
+        count += segmentPoints(i, index(age + 1), spacing);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Like {@link #collect(long, long, double, int, Vec3Array)} at stride 1.
+   */
+  public int collect(long nowMillis, long lifetimeMillis, double spacing, Vec3Array out) {
+    return collect(nowMillis, lifetimeMillis, spacing, 1, out);
+  }
+
+  /**
+   * Appends the points of every segment due for emission to a buffer and marks
+   * them as emitted at {@code nowMillis}: the newest segment, older ones last
+   * emitted at least {@code lifetimeMillis} ago, and those last emitted at a
+   * coarser stride than this one. Segments are sampled every {@code spacing}
+   * blocks, at most {@value #MAX_SEGMENT_POINTS} points each, and thinned to
+   * every {@code stride}th point counting back from the segment's end, so each
+   * segment keeps its sample however far it is thinned.
+   *
+   * @param nowMillis      the current frame time
+   * @param lifetimeMillis how long clients show a spawned particle
+   * @param spacing        blocks between points along a segment
+   * @param stride         keep every {@code stride}th point; 1 keeps them all
+   * @param out            the buffer to append to
+   * @return the number of points appended
+   */
+  public int collect(
+      long nowMillis, long lifetimeMillis, double spacing, int stride, Vec3Array out) {
+    if (stride < 1) {
+      throw new IllegalArgumentException("Stride must be positive, got " + stride);
+    }
+    int before = out.size();
+    // the oldest sample has no older one to start its segment from
+    for (int age = 0; age < size - 1; age++) {
+      int i = index(age);
+      if (!due(i, nowMillis, lifetimeMillis, stride)) {
+        continue;
+      }
+      emitted[i] = nowMillis;
+      emittedStride[i] = stride;
+      int from = index(age + 1);
+      double dx = x[i] - x[from];
+      double dy = y[i] - y[from];
+      double dz = z[i] - z[from];
+      int points = segmentPoints(i, from, spacing);
+      // from just past the older sample up to and including this one
+      for (int p = (points - 1) % stride + 1; p <= points; p += stride) {
+        double t = (double) p / points;
+        out.add(x[from] + dx * t, y[from] + dy * t, z[from] + dz * t);
+      }
+    }
+    return out.size() - before;
+  }
+
+  private boolean due(int i, long nowMillis, long lifetimeMillis, int stride) {
+    return emitted[i] == Long.MIN_VALUE
+        || nowMillis - emitted[i] >= lifetimeMillis
+        || emittedStride[i] > stride;
+  }
+
+  private int segmentPoints(int i, int from, double spacing) {
+    double dx = x[i] - x[from];
+    double dy = y[i] - y[from];
+    double dz = z[i] - z[from];
+    double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+    return Math.max(1, Math.min(MAX_SEGMENT_POINTS, (int) Math.ceil(length / spacing)));
+  }
+
+  private int index(int age) {
+    if (age < 0 || age >= size) {
+      throw new IndexOutOfBoundsException("Age " + age + " out of bounds for size " + size);
+    }
+    int i = newest - age;
+    return i < 0 ? i + x.length : i;
+  }
+}
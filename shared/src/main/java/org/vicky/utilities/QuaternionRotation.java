@@ -2,26 +2,62 @@ package org.vicky.utilities;
 
 import org.vicky.platform.utils.Location3D;
 import org.vicky.platform.utils.Vec3;
+import org.vicky.platform.utils.Vec3Array;
 import org.vicky.platform.world.PlatformLocation;
 
 public class QuaternionRotation {
+    // last matrix built by matrix(); instances are used by one effect at a time
+    private float lastYaw;
+    private float lastPitch;
+    private RotationMatrix lastMatrix;
 
     public PlatformLocation rotateAroundArrow(PlatformLocation particleLoc, PlatformLocation arrowLoc, Vec3 direction) {
         Vec3 relativePos = particleLoc.subtract(arrowLoc);
-        direction = direction.clone().normalize();
+        Vec3 rotatedPos = orientation(arrowLoc).rotateVec3(relativePos);
 
-        double yaw = Math.toRadians(arrowLoc.getYaw());
-        double pitch = Math.toRadians(arrowLoc.getPitch());
+        return arrowLoc.add(rotatedPos);
+    }
+
+    /**
+     * Rotates every point of a buffer around the arrow's location, in place, by the arrow's yaw and pitch.
+     * The rotation matrix is built once for the whole buffer, and reused while the arrow keeps its orientation.
+     */
+    public void rotateAroundArrow(Vec3Array points, PlatformLocation arrowLoc) {
+        matrix(arrowLoc.getYaw(), arrowLoc.getPitch()).apply(points, arrowLoc.getX(), arrowLoc.getY(), arrowLoc.getZ());
+    }
+
+    /**
+     * The rotation {@link #rotateAroundArrow} applies for a yaw and pitch, as a matrix. The last matrix is kept,
+     * so an effect asking once per frame only rebuilds it when the orientation changes.
+     *
+     * @param yaw   yaw in degrees
+     * @param pitch pitch in degrees
+     */
+    public RotationMatrix matrix(float yaw, float pitch) {
+        RotationMatrix matrix = lastMatrix;
+        if (matrix == null || yaw != lastYaw || pitch != lastPitch) {
+            matrix = orientation(yaw, pitch).toMatrix();
+            lastYaw = yaw;
+            lastPitch = pitch;
+            lastMatrix = matrix;
+        }
+        return matrix;
+    }
+
+    private static Quaternion orientation(PlatformLocation arrowLoc) {
+        return orientation(arrowLoc.getYaw(), arrowLoc.getPitch());
+    }
+
+    private static Quaternion orientation(float yawDegrees, float pitchDegrees) {
+        double yaw = Math.toRadians(yawDegrees);
+        double pitch = Math.toRadians(pitchDegrees);
 
         // Convert Euler angles to quaternion
         Quaternion yawQuat = Quaternion.fromAxisAngle(new Vec3(0, 1, 0), -yaw);
         Quaternion pitchQuat = Quaternion.fromAxisAngle(new Vec3(1, 0, 0), pitch);
 
         // Apply rotations
-        Quaternion rotationQuat = yawQuat.multiply(pitchQuat);
-        Vec3 rotatedPos = rotationQuat.rotateVec3(relativePos);
-
-        return arrowLoc.clone().add(rotatedPos);
+        return yawQuat.multiply(pitchQuat);
     }
 }
 
@@ -56,4 +92,8 @@ class Quaternion {
         Quaternion result = this.multiply(Vec3Quat).multiply(conjugate);
         return new Vec3(result.x, result.y, result.z);
     }
+
+    RotationMatrix toMatrix() {
+        return RotationMatrix.fromQuaternion(x, y, z, w);
+    }
 }
\ No newline at end of file
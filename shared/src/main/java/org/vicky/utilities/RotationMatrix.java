@@ -0,0 +1,101 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities;
+
+import org.vicky.platform.utils.Vec3Array;
+
+/**
+ * An immutable 3x3 rotation matrix.
+ * <p>
+ * Built once from a rotation (see {@link QuaternionRotation#matrix(float, float)})
+ * and then applied to whole {@link Vec3Array}s: nine multiply-adds per point,
+ * with no trigonometry or allocation in the loop.
+ * </p>
+ */
+public final class RotationMatrix {
+  /** The rotation that leaves every point in place. */
+  public static final RotationMatrix IDENTITY = new RotationMatrix(1, 0, 0, 0, 1, 0, 0, 0, 1);
+
+  private final double m00, m01, m02;
+  private final double m10, m11, m12;
+  private final double m20, m21, m22;
+
+  RotationMatrix(
+      double m00,
+      double m01,
+      double m02,
+      double m10,
+      double m11,
+      double m12,
+      double m20,
+      double m21,
+      double m22) {
+    this.m00 = m00;
+    this.m01 = m01;
+    this.m02 = m02;
+    this.m10 = m10;
+    this.m11 = m11;
+    this.m12 = m12;
+    this.m20 = m20;
+    this.m21 = m21;
+    this.m22 = m22;
+  }
+
+  /**
+   * The matrix of a unit quaternion (x, y, z, w).
+   */
+  static RotationMatrix fromQuaternion(double x, double y, double z, double w) {
+    double xx = x * x, yy = y * y, zz = z * z;
+    double xy = x * y, xz = x * z, yz = y * z;
+    double xw = x * w, yw = y * w, zw = z * w;
+    return new RotationMatrix(
+        1 - 2 * (yy + zz),
+        2 * (xy - zw),
+        2 * (xz + yw),
+        2 * (xy + zw),
+        1 - 2 * (xx + zz),
+        2 * (yz - xw),
+        2 * (xz - yw),
+        2 * (yz + xw),
+        1 - 2 * (xx + yy));
+  }
+
+  /**
+   * Rotates every point of the buffer around a pivot, in place.
+   */
+  public void apply(Vec3Array points, double pivotX, double pivotY, double pivotZ) {
+    apply(points, pivotX, pivotY, pivotZ, 0, points.size());
+  }
+
+  /**
+   * Rotates points {@code from} (inclusive) to {@code to} (exclusive) of the
+   * buffer around a pivot, in place. Disjoint ranges may be rotated from
+   * different threads.
+   */
+  public void apply(Vec3Array points, double pivotX, double pivotY, double pivotZ, int from, int to) {
+    double[] xs = points.xs();
+    double[] ys = points.ys();
+    double[] zs = points.zs();
+    for (int i = from; i < to; i++) {
+      double vx = xs[i] - pivotX;
+      double vy = ys[i] - pivotY;
+      double vz = zs[i] - pivotZ;
+      xs[i] = pivotX + m00 * vx + m01 * vy + m02 * vz;
+      ys[i] = pivotY + m10 * vx + m11 * vy + m12 * vz;
+      zs[i] = pivotZ + m20 * vx + m21 * vy + m22 * vz;
+    }
+  }
+
+  /**
+   * Rotates every point of the buffer around the origin, in place.
+   */
+  public void apply(Vec3Array points) {
+    apply(points, 0, 0, 0);
+  }
+
+  @Override
+  public String toString() {
+    return "[" + m00 + ", " + m01 + ", " + m02 + "; "
+        + m10 + ", " + m11 + ", " + m12 + "; "
+        + m20 + ", " + m21 + ", " + m22 + "]";
+  }
+}
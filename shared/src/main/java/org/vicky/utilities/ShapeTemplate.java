@@ -0,0 +1,471 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.vicky.platform.utils.FastTrig;
+import org.vicky.platform.utils.Vec3Array;
+import org.vicky.platform.world.PlatformLocation;
+import org.vicky.utilities.ParticleTypeEffect.ParticleTypeEffects;
+import org.vicky.utilities.ParticleTypeEffect.SpacingMode;
+
+/**
+ * The points of a {@link ParticleTypeEffects} shape, computed once and shared.
+ * <p>
+ * A shape's points only depend on its parameters (radius, height step, count,
+ * frequency, rings); the animation angle moves them in a way each shape
+ * defines, usually a spin around the Y axis. The template stores the points at
+ * angle 0 as local-space offsets in flat {@code double[]} arrays, one per axis,
+ * so placing a shape each frame is a handful of multiply-adds per point
+ * instead of a sin/cos pair and two allocations.
+ * </p>
+ * Templates are immutable and cached by shape and parameters, so every task
+ * using the same effect configuration shares one.
+ *
+ * <pre>
+ * ShapeTemplate helix = ShapeTemplate.of(ParticleTypeEffects.HELIX, 0.5, 1.0, 32, 0, null, 0);
+ * helix.place(angle, loc.getX(), loc.getY(), loc.getZ(), points);
+ * </pre>
+ */
+public final class ShapeTemplate {
+  private static final LoadingCache<Key, ShapeTemplate> CACHE =
+      Caffeine.newBuilder().maximumSize(256).build(ShapeTemplate::compile);
+
+  private final ParticleTypeEffects shape;
+  private final int size;
+  private final double radius;
+  private final double heightStep;
+  // offsets at angle 0
+  private final double[] x;
+  private final double[] y;
+  private final double[] z;
+  // second basis for shapes whose radius pulses with the angle, null for the others
+  private final double[] pulseX;
+  private final double[] pulseZ;
+  // sine table for the per-frame angle, or null for Math.sin/cos
+  private final FastTrig trig;
+
+  private ShapeTemplate(
+      FastTrig trig,
+      ParticleTypeEffects shape,
+      double radius,
+      double heightStep,
+      double[] x,
+      double[] y,
+      double[] z,
+      double[] pulseX,
+      double[] pulseZ) {
+    this.trig = trig;
+    this.shape = shape;
+    this.size = x.length;
+    this.radius = radius;
+    this.heightStep = heightStep;
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    this.pulseX = pulseX;
+    this.pulseZ = pulseZ;
+  }
+
+  /**
+   * Returns the shared template for a shape. Parameters the shape does not use
+   * are ignored, so they do not split the cache.
+   *
+   * @param shape       the shape
+   * @param radius      the shape's radius
+   * @param heightStep  the vertical step of rising or falling shapes
+   * @param count       the number of points
+   * @param frequency   the pulse frequency of {@code PULSE_WAVES} and {@code OSCILLATING_RINGS}
+   * @param spacingMode how {@code RIPPLES} spaces its rings
+   * @param circles     the number of {@code RIPPLES} rings
+   */
+  public static ShapeTemplate of(
+      ParticleTypeEffects shape,
+      double radius,
+      double heightStep,
+      int count,
+      double frequency,
+      SpacingMode spacingMode,
+      int circles) {
+    return of(shape, radius, heightStep, count, frequency, spacingMode, circles, false);
+  }
+
+  /**
+   * Like {@link #of(ParticleTypeEffects, double, double, int, double, SpacingMode, int)}, optionally
+   * computing the shape and its per-frame angle with {@link FastTrig#DEFAULT}. Points are then off by
+   * at most 3e-7 times the radius, far below what a particle can show.
+   *
+   * @param fastTrig whether to use the sine table instead of {@link Math#sin(double)}
+   */
+  public static ShapeTemplate of(
+      ParticleTypeEffects shape,
+      double radius,
+      double heightStep,
+      int count,
+      double frequency,
+      SpacingMode spacingMode,
+      int circles,
+      boolean fastTrig) {
+    count = Math.max(0, count);
+    switch (shape) {
+      case LINE:
+        return CACHE.get(new Key(shape, radius, 0, count, 0, null, 0, fastTrig));
+      case RIPPLES:
+        return CACHE.get(new Key(shape, radius, 0, count, 0, spacingMode, circles, fastTrig));
+      case PULSE_WAVES:
+      case OSCILLATING_RINGS:
+        return CACHE.get(new Key(shape, radius, heightStep, count, frequency, null, 0, fastTrig));
+      default:
+        return CACHE.get(new Key(shape, radius, heightStep, count, 0, null, 0, fastTrig));
+    }
+  }
+
+  public ParticleTypeEffects shape() {
+    return shape;
+  }
+
+  /**
+   * @return the number of points; may be less than the requested count for {@code RIPPLES}
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return whether the shape repeats every 2π of animation angle, apart from
+   *     {@link #risePerRadian()}; RIPPLES grows with the angle and
+   *     EXPLODING_STARS is random, the others are periodic
+   */
+  public boolean isPeriodic() {
+    return shape != ParticleTypeEffects.RIPPLES && shape != ParticleTypeEffects.EXPLODING_STARS;
+  }
+
+  /**
+   * @return whether placing the shape draws from the random source; only
+   *     EXPLODING_STARS does
+   */
+  public boolean isRandom() {
+    return shape == ParticleTypeEffects.EXPLODING_STARS;
+  }
+
+  /**
+   * @return how far the whole shape climbs per radian of animation angle; the
+   *     part of its motion that does not repeat
+   */
+  public double risePerRadian() {
+    switch (shape) {
+      case WAVY_LINE:
+      case BURST_SPIRAL:
+      case CONVERGING_LINES:
+        return heightStep;
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * Writes the shape's points at an animation angle, translated to an origin,
+   * into the first {@link #size()} slots of the output arrays. Random shapes
+   * draw from {@link ThreadLocalRandom}.
+   *
+   * @param angle the animation angle in radians
+   */
+  public void place(
+      double angle,
+      double originX,
+      double originY,
+      double originZ,
+      double[] outX,
+      double[] outY,
+      double[] outZ) {
+    place(angle, originX, originY, originZ, outX, outY, outZ, ThreadLocalRandom.current());
+  }
+
+  /**
+   * Writes the shape's points like
+   * {@link #place(double, double, double, double, double[], double[], double[])},
+   * drawing the scatter of random shapes (EXPLODING_STARS) from the given
+   * source. With a seeded source the output is reproducible.
+   *
+   * @param angle  the animation angle in radians
+   * @param random the random source, used only by the calling thread
+   */
+  public void place(
+      double angle,
+      double originX,
+      double originY,
+      double originZ,
+      double[] outX,
+      double[] outY,
+      double[] outZ,
+      RandomGenerator random) {
+    place(angle, originX, originY, originZ, outX, outY, outZ, random, 0, size);
+  }
+
+  /**
+   * Writes points {@code from} (inclusive) to {@code to} (exclusive) of the
+   * shape. Ranges are independent, so disjoint ranges may be written from
+   * different threads, each with its own random source.
+   */
+  void place(
+      double angle,
+      double originX,
+      double originY,
+      double originZ,
+      double[] outX,
+      double[] outY,
+      double[] outZ,
+      RandomGenerator random,
+      int from,
+      int to) {
+    double sin = sin(trig, angle);
+    double cos = cos(trig, angle);
+    switch (shape) {
+      case LINE:
+        translate(originX, originY, originZ, outX, outY, outZ, from, to);
+        break;
+      case RIPPLES:
+        double scale = Math.max(0.4 * radius, Math.min(1.2 * radius, angle / 360.0));
+        for (int i = from; i < to; i++) {
+          outX[i] = originX + x[i] * scale;
+          outY[i] = originY;
+          outZ[i] = originZ + z[i] * scale;
+        }
+        break;
+      case WAVY_LINE:
+        double rise = angle * heightStep;
+        for (int i = from; i < to; i++) {
+          outX[i] = originX + sin * (x[i] * cos - z[i] * sin);
+          outY[i] = originY + y[i] + rise;
+          outZ[i] = originZ + cos * (x[i] * sin + z[i] * cos);
+        }
+        break;
+      case BURST_SPIRAL:
+      case CONVERGING_LINES:
+        spin(sin, cos, originX, originY + angle * heightStep, originZ, outX, outY, outZ, from, to);
+        break;
+      case EXPLODING_STARS:
+        for (int i = from; i < to; i++) {
+          double spread = random.nextDouble();
+          outX[i] = originX + (x[i] * cos - z[i] * sin) * spread;
+          outY[i] = originY + y[i];
+          outZ[i] = originZ + (x[i] * sin + z[i] * cos) * spread;
+        }
+        break;
+      case PULSE_WAVES:
+      case OSCILLATING_RINGS:
+        for (int i = from; i < to; i++) {
+          double px = x[i] * sin + pulseX[i] * cos;
+          double pz = z[i] * sin + pulseZ[i] * cos;
+          outX[i] = originX + px * cos - pz * sin;
+          outY[i] = originY + y[i];
+          outZ[i] = originZ + px * sin + pz * cos;
+        }
+        break;
+      default:
+        spin(sin, cos, originX, originY, originZ, outX, outY, outZ, from, to);
+        break;
+    }
+  }
+
+  /**
+   * Places the shape into a buffer, replacing its contents.
+   *
+   * @param angle the animation angle in radians
+   */
+  public void place(double angle, double originX, double originY, double originZ, Vec3Array out) {
+    place(angle, originX, originY, originZ, out, ThreadLocalRandom.current());
+  }
+
+  /**
+   * Places the shape into a buffer, replacing its contents, with a given
+   * random source.
+   *
+   * @param angle the animation angle in radians
+   */
+  public void place(
+      double angle,
+      double originX,
+      double originY,
+      double originZ,
+      Vec3Array out,
+      RandomGenerator random) {
+    out.resize(size);
+    place(angle, originX, originY, originZ, out.xs(), out.ys(), out.zs(), random);
+  }
+
+  /**
+   * Places the shape like {@link #place(double, double, double, double, double[], double[], double[])}
+   * and wraps every point in a location.
+   */
+  public PlatformLocation[] place(PlatformLocation origin, double angle) {
+    double[] xs = new double[size];
+    double[] ys = new double[size];
+    double[] zs = new double[size];
+    place(angle, origin.getX(), origin.getY(), origin.getZ(), xs, ys, zs);
+    PlatformLocation[] positions = new PlatformLocation[size];
+    for (int i = 0; i < size; i++) {
+      positions[i] = new PlatformLocation(origin.getWorld(), xs[i], ys[i], zs[i]);
+    }
+    return positions;
+  }
+
+  private void translate(
+      double originX,
+      double originY,
+      double originZ,
+      double[] outX,
+      double[] outY,
+      double[] outZ,
+      int from,
+      int to) {
+    for (int i = from; i < to; i++) {
+      outX[i] = originX + x[i];
+      outY[i] = originY + y[i];
+      outZ[i] = originZ + z[i];
+    }
+  }
+
+  // rotates the offsets around the Y axis by the angle whose sine and cosine are given
+  private void spin(
+      double sin,
+      double cos,
+      double originX,
+      double originY,
+      double originZ,
+      double[] outX,
+      double[] outY,
+      double[] outZ,
+      int from,
+      int to) {
+    for (int i = from; i < to; i++) {
+      outX[i] = originX + x[i] * cos - z[i] * sin;
+      outY[i] = originY + y[i];
+      outZ[i] = originZ + x[i] * sin + z[i] * cos;
+    }
+  }
+
+  private static ShapeTemplate compile(Key key) {
+    if (key.shape == ParticleTypeEffects.RIPPLES) {
+      return compileRipples(key);
+    }
+    FastTrig trig = key.fastTrig ? FastTrig.DEFAULT : null;
+    int n = key.count;
+    double r = key.radius;
+    double h = key.heightStep;
+    double step = n == 0 ? 0 : 2 * Math.PI / n;
+    double[] x = new double[n];
+    double[] y = new double[n];
+    double[] z = new double[n];
+    double[] pulseX = null;
+    double[] pulseZ = null;
+    if (key.shape == ParticleTypeEffects.PULSE_WAVES
+        || key.shape == ParticleTypeEffects.OSCILLATING_RINGS) {
+      pulseX = new double[n];
+      pulseZ = new double[n];
+    }
+
+    for (int i = 0; i < n; i++) {
+      double theta = i * step;
+      double t = i / (double) n;
+      double cos = cos(trig, theta);
+      double sin = sin(trig, theta);
+      switch (key.shape) {
+        case LINE:
+          x[i] = r;
+          z[i] = r;
+          break;
+        case HELIX:
+          x[i] = r * cos;
+          y[i] = t * h;
+          z[i] = r * sin;
+          break;
+        case WAVY_LINE:
+          x[i] = r * cos;
+          y[i] = theta * h;
+          z[i] = r * sin;
+          break;
+        case BURST_SPIRAL:
+          x[i] = r * t * cos;
+          y[i] = theta * h;
+          z[i] = r * t * sin;
+          break;
+        case CONVERGING_LINES:
+          x[i] = (r - r * t) * cos;
+          y[i] = theta * h;
+          z[i] = (r - r * t) * sin;
+          break;
+        case FALLING_LEAVES:
+          x[i] = r * cos;
+          y[i] = -t * h;
+          z[i] = r * sin;
+          break;
+        case EXPLODING_STARS:
+          x[i] = r * cos;
+          y[i] = h;
+          z[i] = r * sin;
+          break;
+        case PULSE_WAVES:
+        case OSCILLATING_RINGS:
+          // r * sin(angle + i * f) = sin(angle) * r cos(i * f) + cos(angle) * r sin(i * f)
+          double phase = i * key.frequency;
+          x[i] = r * cos(trig, phase) * cos;
+          z[i] = r * cos(trig, phase) * sin;
+          pulseX[i] = r * sin(trig, phase) * cos;
+          pulseZ[i] = r * sin(trig, phase) * sin;
+          y[i] = h;
+          break;
+        default:
+          throw new IllegalStateException("Unexpected effect type: " + key.shape);
+      }
+    }
+    return new ShapeTemplate(trig, key.shape, r, h, x, y, z, pulseX, pulseZ);
+  }
+
+  private static ShapeTemplate compileRipples(Key key) {
+    FastTrig trig = key.fastTrig ? FastTrig.DEFAULT : null;
+    int circles = key.circles;
+    if (circles <= 0) {
+      return new ShapeTemplate(trig, key.shape, key.radius, 0, new double[0], new double[0], new double[0], null, null);
+    }
+    int pointsPerCircle = Math.max(6, key.count / circles);
+    int n = Math.min(key.count, circles * pointsPerCircle);
+    double[] x = new double[n];
+    double[] z = new double[n];
+    double thetaStep = 2 * Math.PI / pointsPerCircle;
+    for (int index = 0; index < n; index++) {
+      int circle = index / pointsPerCircle;
+      double circleRadius;
+      if (key.spacingMode == SpacingMode.LINEAR) {
+        circleRadius = key.radius * (circle + 1) / circles;
+      } else { // EXPONENTIAL
+        circleRadius = key.radius * (1.0 + Math.pow(circle, 1.5) / Math.pow(circles, 1.5));
+      }
+      double theta = (index % pointsPerCircle) * thetaStep;
+      x[index] = circleRadius * cos(trig, theta);
+      z[index] = circleRadius * sin(trig, theta);
+    }
+    return new ShapeTemplate(trig, key.shape, key.radius, 0, x, new double[n], z, null, null);
+  }
+
+  private static double sin(FastTrig trig, double radians) {
+    return trig == null ? Math.sin(radians) : trig.sin(radians);
+  }
+
+  private static double cos(FastTrig trig, double radians) {
+    return trig == null ? Math.cos(radians) : trig.cos(radians);
+  }
+
+  private record Key(
+      ParticleTypeEffects shape,
+      double radius,
+      double heightStep,
+      int count,
+      double frequency,
+      SpacingMode spacingMode,
+      int circles,
+      boolean fastTrig) {}
+}
@@ -9,6 +9,7 @@ import org.vicky.platform.world.PlatformBlock
 import org.vicky.platform.world.PlatformWorld
 import org.vicky.utilities.ContextLogger.AsyncContextLogger
 import org.vicky.utilities.ContextLogger.ContextLogger
+import org.vicky.utilities.ContextLogger.debug
 import java.lang.Math.toRadians
 import kotlin.math.*
 import kotlin.random.Random
@@ -944,7 +945,7 @@ class TaskBuilder private constructor(val id: ResourceLocation, val type: TaskTy
                     val compiledTimedBlockActions = dto.blockTimedActionRefs.map { GlobalSpecRegistry.compileBlockTimedAction(it) }
                     compiledSteps += CompiledStep.BlockActionStep(dto, compiledBlockActions, compiledTimedBlockActions)
                 }
-                else -> LOGGER.debug("While building task: $id, the step $step is not a supported type")
+                else -> LOGGER.debug { "While building task: $id, the step $step is not a supported type" }
             }
         }
 
@@ -1115,9 +1116,9 @@ class TaskBuilder private constructor(val id: ResourceLocation, val type: TaskTy
             val compiledFilters = filtersRef.map { GlobalSpecRegistry.compileFilter(it) }
             val selFn: (SelectorContext, Map<String, Any>) -> AmountableResult<PlatformLivingEntity> = { ctx, P ->
                 val base = ctx.world.getLivingEntitiesWithin(ctx.originX, ctx.originY, ctx.originZ, (P["range"] as? Number ?: defaultRange).toFloat())
-                LOGGER.debug("the entities retuned were of size: ${base.size}")
+                LOGGER.debug { "the entities retuned were of size: ${base.size}" }
                 val filtered = base.filter { candidate -> compiledFilters.all { it.test(candidate, ctx, P) } }
-                LOGGER.debug("the entities retuned after filtering were of size: ${base.size}")
+                LOGGER.debug { "the entities retuned after filtering were of size: ${filtered.size}" }
                 when (resultType) {
                     ResultType.SINGLE -> AmountableResult(ResultType.SINGLE, filtered.take(1))
                     ResultType.RANDOM_MULTIPLE -> AmountableResult(ResultType.MULTIPLE, filtered.shuffled())
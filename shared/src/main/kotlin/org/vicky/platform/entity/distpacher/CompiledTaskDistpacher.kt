@@ -6,6 +6,8 @@ import org.vicky.platform.utils.ResourceLocation
 import org.vicky.platform.world.PlatformBlock
 import org.vicky.utilities.ContextLogger.AsyncContextLogger
 import org.vicky.utilities.ContextLogger.ContextLogger
+import org.vicky.utilities.ContextLogger.debug
+import org.vicky.utilities.ContextLogger.warn
 import org.vicky.utilities.Pair
 import java.util.*
 import java.util.concurrent.ConcurrentHashMap
@@ -51,6 +53,7 @@ object EntityTaskManager {
     private val executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors().coerceAtMost(4))
     private val states = ConcurrentHashMap<UUID, EntityTaskState>()
     private val LOGGER = AsyncContextLogger(ContextLogger.ContextType.SYSTEM, "ENTITY-TASK-MANAGER")
+        .apply { setCoalesceDuplicates(true) } // per-tick failures repeat every tick
 
     // small config
     private var selectorThrottleTicks = 4L
@@ -78,7 +81,7 @@ object EntityTaskManager {
                 try {
                     a.compiled.onEnd(a.self, a.targetEntity, a.params)
                 } catch (ex: Exception) {
-                    LOGGER.debug("Exception while ending timed action ${a.compiled.id} for ${entity.uuid}: $ex")
+                    LOGGER.debug { "Exception while ending timed action ${a.compiled.id} for ${entity.uuid}: $ex" }
                 }
                 itEnt.remove()
 
@@ -98,7 +101,7 @@ object EntityTaskManager {
                 try {
                     a.compiled.onEnd(a.self, a.targetBlock, a.params)
                 } catch (ex: Exception) {
-                    LOGGER.debug("Exception while ending block timed action ${a.compiled.id} for ${entity.uuid}: $ex")
+                    LOGGER.debug { "Exception while ending block timed action ${a.compiled.id} for ${entity.uuid}: $ex" }
                 }
                 itBlock.remove()
                 st.assignedTasks.remove(a.taskId)
@@ -163,9 +166,9 @@ object EntityTaskManager {
             for (sig in compiled.waitForSignals) {
                 SignalManager.subscribe(entity.uuid, sig, taskId, params, priority)
             }
-            LOGGER.debug("Task $taskId for ${entity.uuid} will wait for signals=${compiled.waitForSignals}", ContextLogger.LogType.BASIC)
+            LOGGER.debug { "Task $taskId for ${entity.uuid} will wait for signals=${compiled.waitForSignals}" }
         } else {
-            LOGGER.debug("Assigned task $taskId to ${entity.uuid} with params=$params", ContextLogger.LogType.BASIC)
+            LOGGER.debug { "Assigned task $taskId to ${entity.uuid} with params=$params" }
         }
     }
 
@@ -248,7 +251,7 @@ object EntityTaskManager {
 
         if (isTaskOnCooldown(st, task.id)) return TaskRunOutcome.NOT_RUN
         if (st.waitingTasks.containsKey(task.id)) {
-            LOGGER.debug("Task ${task.id} is waiting on signals=${st.waitingTasks[task.id]} for entity ${entity.uuid}")
+            LOGGER.debug { "Task ${task.id} is waiting on signals=${st.waitingTasks[task.id]} for entity ${entity.uuid}" }
             return TaskRunOutcome.NOT_RUN
         }
 
@@ -263,13 +266,13 @@ object EntityTaskManager {
 
                         st.lastSelectorTick[step.selector.id] = worldTick
                         st.lastSelectorResult[step.selector.id] = result
-                        LOGGER.debug("Task ${task.id} entity selector has gathered targets: ${result.size()}")
+                        LOGGER.debug { "Task ${task.id} entity selector has gathered targets: ${result.size()}" }
                     }
 
                     working = result as AmountableResult<PlatformLivingEntity>?
 
                     if (working == null) {
-                        LOGGER.debug("Task ${task.id} entity selector ${step.selector.id} returned no targets — skipping")
+                        LOGGER.debug { "Task ${task.id} entity selector ${step.selector.id} returned no targets — skipping" }
                         return TaskRunOutcome.NOT_RUN
                     }
                 }
@@ -350,13 +353,13 @@ object EntityTaskManager {
 
                         st.lastSelectorTick[step.selector.id] = worldTick
                         st.lastSelectorResult[step.selector.id] = result
-                        LOGGER.debug("Task ${task.id} block selector has gathered targets: ${result.size()}")
+                        LOGGER.debug { "Task ${task.id} block selector has gathered targets: ${result.size()}" }
                     }
 
                     workingBlock = result as AmountableResult<PlatformBlock<*>>?
 
                     if (workingBlock == null) {
-                        LOGGER.debug("Task ${task.id} selector ${step.selector.id} returned no targets — skipping")
+                        LOGGER.debug { "Task ${task.id} selector ${step.selector.id} returned no targets — skipping" }
                         return TaskRunOutcome.NOT_RUN
                     }
                 }
@@ -417,7 +420,7 @@ object EntityTaskManager {
                         when (workingBlock.resultType) {
                             ResultType.SINGLE, ResultType.RANDOM_SINGLE -> {
                                 workingBlock.getSingleResult()?.let { t ->
-                                    LOGGER.debug("Scheduled task single for $t")
+                                    LOGGER.debug { "Scheduled task single for $t" }
                                     scheduleTimedList(st, entity, listOf(t), instance, step)
                                 }
                             }
@@ -462,10 +465,10 @@ object EntityTaskManager {
                 // slot & runBlocking handling
                 val slot = ref.slot
                 if (!tryAcquireSlot(st, slot, task)) {
-                    LOGGER.debug(
+                    LOGGER.debug {
                         "Skipping timed ref $ref for task ${task.id}: " +
                                 "slot $slot is owned by an equal/higher priority task"
-                    )
+                    }
                     return@forEachIndexed
                 }
 
@@ -493,7 +496,7 @@ object EntityTaskManager {
         instance: TaskInstance,
         step: CompiledStep.BlockActionStep
     ) {
-        LOGGER.debug("Scheduling timed list for task ${instance.compiled.id} with owner ${owner.typeId} on ${targets.size} targets.")
+        LOGGER.debug { "Scheduling timed list for task ${instance.compiled.id} with owner ${owner.typeId} on ${targets.size} targets." }
 
         // step.dto.timedRefs aligns to compiledTimedAction list by index
         val dtoTimedRefs = step.dto.blockTimedActionRefs
@@ -510,10 +513,10 @@ object EntityTaskManager {
 
                 val slot = ref.slot
                 if (!tryAcquireSlot(st, slot, task)) {
-                    LOGGER.debug(
+                    LOGGER.debug {
                         "Skipping timed ref $ref for task ${task.id}: " +
                                 "slot $slot is owned by an equal/higher priority task"
-                    )
+                    }
                     return@forEachIndexed
                 }
 
@@ -523,7 +526,7 @@ object EntityTaskManager {
                 val interval = (instance.parameters[compiledTimed.id.toString() + ":interval"] as? Number)?.toInt() ?:
                     ref.interval ?: compiledTimed.defaultInterval
 
-                LOGGER.debug("Scheduling timed action ${compiledTimed.id} for target ${target.location} with duration $ticksLeft and interval $interval.")
+                LOGGER.debug { "Scheduling timed action ${compiledTimed.id} for target ${target.location} with duration $ticksLeft and interval $interval." }
 
                 if (compiledTimed.onStart(owner, target, instance.parameters)) {
                     val active = ActiveTimedBlockAction(
@@ -531,9 +534,9 @@ object EntityTaskManager {
                         ticksLeft, interval, 0, slot, task.id, compiledTimed.id
                     )
                     st.activeBlockTimed.add(active)
-                    LOGGER.debug("Added ActiveTimedBlockAction ${compiledTimed.id} for target ${target.location}, task ${task.id}, slot $slot.")
+                    LOGGER.debug { "Added ActiveTimedBlockAction ${compiledTimed.id} for target ${target.location}, task ${task.id}, slot $slot." }
                 } else {
-                    LOGGER.warn("onStart returned false for timed action ${compiledTimed.id} on target ${target.location}. Skipping creation.")
+                    LOGGER.warn { "onStart returned false for timed action ${compiledTimed.id} on target ${target.location}. Skipping creation." }
                 }
             }
         }
@@ -562,28 +565,28 @@ object EntityTaskManager {
                 st.assignedTasks[active.taskId]?.first ?: Int.MIN_VALUE
 
             if (newPriority > activePriority) {
-                LOGGER.debug(
+                LOGGER.debug {
                     "Task ${newTask.id} (priority=$newPriority) is seizing slot $slot " +
                             "from task ${active.taskId} (priority=$activePriority) " +
                             "for entity ${active.self.uuid}"
-                )
+                }
 
                 // Cleanly terminate the old action.
                 try {
                     active.end()
                 } catch (ex: Exception) {
-                    LOGGER.debug(
+                    LOGGER.debug {
                         "Exception while preempting timed action ${active.compiled.id}: $ex"
-                    )
+                    }
                 }
 
                 st.activeEntityTimed.remove(active)
                 acquired = true
             } else {
-                LOGGER.debug(
+                LOGGER.debug {
                     "Task ${newTask.id} (priority=$newPriority) cannot acquire slot $slot; " +
                             "occupied by ${active.taskId} (priority=$activePriority)"
-                )
+                }
             }
         }
 
@@ -0,0 +1,42 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.utilities.ContextLogger
+
+import org.vicky.utilities.ContextLogger.ContextLogger.LogType
+
+/*
+ * Lazy logging for Kotlin hot paths. A Kotlin string template is built before the
+ * call, even when the level is disabled; these inline variants check the level
+ * first and only then run the block, so a disabled call costs one field read and
+ * allocates nothing. The built message is passed to [ContextLogger.logBuilt], so it
+ * does not take a slot in the template cache meant for literal messages:
+ *
+ *     LOGGER.debug { "Task ${task.id} is waiting on ${signals}" }
+ */
+
+inline fun ContextLogger.debug(message: () -> String) {
+    if (isDebugEnabled) logBuilt(LogType.DEBUG, message())
+}
+
+inline fun ContextLogger.info(message: () -> String) {
+    if (isEnabled(LogType.BASIC)) logBuilt(LogType.BASIC, message())
+}
+
+inline fun ContextLogger.warn(message: () -> String) {
+    if (isEnabled(LogType.WARNING)) logBuilt(LogType.WARNING, message())
+}
+
+inline fun ContextLogger.severe(message: () -> String) {
+    if (isEnabled(LogType.ERROR)) logBuilt(LogType.ERROR, message())
+}
+
+inline fun ContextLogger.success(message: () -> String) {
+    if (isEnabled(LogType.SUCCESS)) logBuilt(LogType.SUCCESS, message())
+}
+
+inline fun ContextLogger.pending(message: () -> String) {
+    if (isEnabled(LogType.PENDING)) logBuilt(LogType.PENDING, message())
+}
+
+inline fun ContextLogger.ambient(message: () -> String) {
+    if (isEnabled(LogType.AMBIENCE)) logBuilt(LogType.AMBIENCE, message())
+}
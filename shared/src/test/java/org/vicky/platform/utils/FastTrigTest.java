@@ -0,0 +1,93 @@
+/* Licensed under Apache-2.0 2026. */
+package org.vicky.platform.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+class FastTrigTest {
+	private static final int[] SIZES = {16, 1024, 4096, 16384};
+	// samples per period; not a multiple of any table size, so points fall between entries
+	private static final int SAMPLES = 1_000_003;
+	private static final double ROUNDING = 1e-15;
+
+	@Test
+	void sineErrorStaysWithinMaxError() {
+		for (int size : SIZES) {
+			FastTrig trig = new FastTrig(size);
+			double error = maxError(trig::sin, Math::sin, 0);
+			assertTrue(error <= trig.maxError() + ROUNDING, size + ": " + error + " > " + trig.maxError());
+			// the bound is tight: the worst point between two entries comes close to it
+			assertTrue(error >= trig.maxError() * 0.9, size + ": " + error + " << " + trig.maxError());
+		}
+	}
+
+	@Test
+	void cosineErrorStaysWithinMaxError() {
+		for (int size : SIZES) {
+			FastTrig trig = new FastTrig(size);
+			double error = maxError(trig::cos, Math::cos, 0);
+			assertTrue(error <= trig.maxError() + ROUNDING, size + ": " + error + " > " + trig.maxError());
+		}
+	}
+
+	@Test
+	void negativeArguments() {
+		for (int size : SIZES) {
+			FastTrig trig = new FastTrig(size);
+			double start = -10 * Math.PI;
+			assertTrue(maxError(trig::sin, Math::sin, start) <= trig.maxError() + ROUNDING, "sin " + size);
+			assertTrue(maxError(trig::cos, Math::cos, start) <= trig.maxError() + ROUNDING, "cos " + size);
+		}
+	}
+
+	@Test
+	void argumentsNearOneMillion() {
+		// reducing the argument into the table costs about 1e-10 here, on top of the interpolation
+		for (int size : SIZES) {
+			FastTrig trig = new FastTrig(size);
+			for (double start : new double[]{1e6, -1e6}) {
+				assertTrue(maxError(trig::sin, Math::sin, start) <= trig.maxError() + 1e-9, "sin " + size);
+				assertTrue(maxError(trig::cos, Math::cos, start) <= trig.maxError() + 1e-9, "cos " + size);
+			}
+		}
+	}
+
+	@Test
+	void documentedBounds() {
+		assertTrue(new FastTrig(1024).maxError() <= 4.71e-6);
+		assertTrue(FastTrig.DEFAULT.maxError() <= 2.95e-7);
+		assertTrue(new FastTrig(16384).maxError() <= 1.84e-8);
+	}
+
+	@Test
+	void exactAtTableEntries() {
+		FastTrig trig = FastTrig.DEFAULT;
+		assertEquals(0, trig.sin(0), ROUNDING);
+		assertEquals(1, trig.sin(Math.PI / 2), ROUNDING);
+		assertEquals(1, trig.cos(0), ROUNDING);
+		assertEquals(-1, trig.cos(Math.PI), ROUNDING);
+	}
+
+	@Test
+	void rejectsSizesThatAreNotPowersOfTwo() {
+		for (int size : new int[]{0, 8, -16, 1000, 4095, Integer.MIN_VALUE}) {
+			assertThrows(IllegalArgumentException.class, () -> new FastTrig(size), "size " + size);
+		}
+		assertEquals(16, new FastTrig(16).size());
+	}
+
+	// largest absolute difference over one period starting at start
+	private static double maxError(DoubleUnaryOperator fast, DoubleUnaryOperator exact, double start) {
+		double worst = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			double x = start + 2 * Math.PI * i / SAMPLES;
+			worst = Math.max(worst, Math.abs(fast.applyAsDouble(x) - exact.applyAsDouble(x)));
+		}
+		return worst;
+	}
+}